@@ -20,16 +20,17 @@ import android.app.ListActivity;
 import android.os.Bundle;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ArrayAdapter;
 import android.widget.Button;
 import android.widget.ListView;
 import android.widget.Toast;
 
+import com.hansune.touch.DismissibleArrayAdapter;
+
 import java.util.ArrayList;
 import java.util.Arrays;
 
 public class MainActivity extends ListActivity {
-    ArrayAdapter<String> mAdapter;
+    DismissibleArrayAdapter<String> mAdapter;
 
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -41,7 +42,7 @@ public class MainActivity extends ListActivity {
             items[i] = "Item " + (i + 1);
         }
 
-        mAdapter = new ArrayAdapter<String>(this,
+        mAdapter = new DismissibleArrayAdapter<String>(this,
                 android.R.layout.simple_list_item_1,
                 android.R.id.text1,
                 new ArrayList<String>(Arrays.asList(items)));
@@ -62,10 +63,7 @@ public class MainActivity extends ListActivity {
 
                             @Override
                             public void onDismiss(ListView listView, int[] reverseSortedPositions) {
-                                for (int position : reverseSortedPositions) {
-                                    mAdapter.remove(mAdapter.getItem(position));
-                                }
-                                mAdapter.notifyDataSetChanged();
+                                mAdapter.removePositions(reverseSortedPositions);
                             }
                         });
         listView.setOnTouchListener(touchListener);
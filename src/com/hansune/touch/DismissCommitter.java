@@ -0,0 +1,308 @@
+/*
+ * Copyright 2013 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hansune.touch;
+
+import android.os.Process;
+import android.util.Log;
+import android.widget.ListView;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Splits the work of a dismissal in two. The cheap adapter mutation runs on the UI thread through
+ * a {@link UiCallback}, and the slow side effects (database, network) run on a single worker
+ * thread through a {@link Store}, which receives the dismissed items in batches.
+ *
+ * <p>Call {@link #onDismiss(android.widget.ListView, int[])} from
+ * {@link SwipeDismissListViewTouchListener.DismissCallbacks#onDismiss(android.widget.ListView, int[])}.
+ * Items wait in a bounded queue, which never blocks the UI thread. When the worker falls behind
+ * by more than the queue capacity, further items spill into an unbounded list that the worker
+ * drains once it has caught up, so no dismissed item is lost and the order is kept.</p>
+ *
+ * <p>The worker is a daemon thread. It keeps the {@link UiCallback} and the {@link Store}, and
+ * whatever they reference, alive until {@link #close()} is called.</p>
+ *
+ * <p>Example usage:</p>
+ *
+ * <pre>
+ * final DismissCommitter&lt;String&gt; committer = new DismissCommitter&lt;String&gt;(
+ *         new DismissCommitter.UiCallback&lt;String&gt;() {
+ *             public void onDismiss(ListView listView, int[] reverseSortedPositions,
+ *                                   List&lt;String&gt; dismissedItems) {
+ *                 for (int position : reverseSortedPositions) {
+ *                     String item = adapter.getItem(position);
+ *                     adapter.remove(item);
+ *                     dismissedItems.add(item);
+ *                 }
+ *                 adapter.notifyDataSetChanged();
+ *             }
+ *         },
+ *         new DismissCommitter.Store&lt;String&gt;() {
+ *             public void commit(List&lt;String&gt; batch) {
+ *                 database.deleteAll(batch);
+ *             }
+ *         });
+ *
+ * // In DismissCallbacks#onDismiss
+ * committer.onDismiss(listView, reverseSortedPositions);
+ *
+ * // When the screen goes away
+ * committer.close();
+ * </pre>
+ *
+ * <br>
+ * 사라진 아이템의 처리를 둘로 나눈다. 어댑터 변경은 UI 스레드에서, 느린 저장 작업은 작업 스레드에서 묶어서 처리한다.
+ *
+ * @param <T> The type of the dismissed items handed to the {@link Store}.
+ * @see SwipeDismissListViewTouchListener
+ */
+public class DismissCommitter<T> {
+
+    /** Default number of dismissed items that may wait for the worker. */
+    public static final int DEFAULT_CAPACITY = 256;
+    /** Default upper bound of the batches handed to {@link Store#commit(java.util.List)}. */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+
+    private static final String TAG = "DismissCommitter";
+
+    // Queued after the last item by close(); never handed to the store.
+    private static final Object CLOSE = new Object();
+
+    /**
+     * Applies a dismissal to the adapter on the UI thread.
+     */
+    public interface UiCallback<T> {
+        /**
+         * Called on the UI thread with the positions reported by
+         * {@link SwipeDismissListViewTouchListener.DismissCallbacks#onDismiss(android.widget.ListView, int[])}.
+         * Remove the items from the adapter and add them to {@code dismissedItems}; those are
+         * then committed to the {@link Store} on the worker thread.
+         *
+         * @param listView               The originating {@link android.widget.ListView}.
+         * @param reverseSortedPositions An array of positions to dismiss, sorted in descending
+         *                               order for convenience.
+         * @param dismissedItems         Receives the items to persist.
+         */
+        void onDismiss(ListView listView, int[] reverseSortedPositions, List<T> dismissedItems);
+    }
+
+    /**
+     * Persists dismissed items on the worker thread.
+     */
+    public interface Store<T> {
+        /**
+         * Called on the worker thread with one or more dismissed items, in dismissal order.
+         * A {@link RuntimeException} thrown here is logged and the batch is dropped; the worker
+         * keeps running.
+         *
+         * @param batch The dismissed items. Only valid for the duration of the call.
+         */
+        void commit(List<T> batch);
+    }
+
+    private final UiCallback<T> mUiCallback;
+    private final Store<T> mStore;
+    private final int mMaxBatchSize;
+    private final ArrayBlockingQueue<Object> mQueue;
+    private final Thread mWorker;
+    private final List<T> mDismissedItems = new ArrayList<T>();
+
+    // Guarded by mLock
+    private final Object mLock = new Object();
+    private final ArrayDeque<Object> mSpill = new ArrayDeque<Object>(); // newer than mQueue
+    private int mUncommittedCount = 0;
+    private boolean mClosed;
+
+    /**
+     * Constructs a committer with {@link #DEFAULT_CAPACITY} and {@link #DEFAULT_MAX_BATCH_SIZE}.
+     *
+     * @param uiCallback Applies the adapter mutation on the UI thread.
+     * @param store      Persists the dismissed items on the worker thread.
+     */
+    public DismissCommitter(UiCallback<T> uiCallback, Store<T> store) {
+        this(uiCallback, store, DEFAULT_CAPACITY, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * Constructs a committer and starts its worker thread.
+     *
+     * @param uiCallback   Applies the adapter mutation on the UI thread.
+     * @param store        Persists the dismissed items on the worker thread.
+     * @param capacity     How many dismissed items may wait in the queue before they spill.
+     * @param maxBatchSize Upper bound of the batches handed to the store.
+     */
+    public DismissCommitter(UiCallback<T> uiCallback, Store<T> store,
+                            int capacity, int maxBatchSize) {
+        if (capacity < 1 || maxBatchSize < 1) {
+            throw new IllegalArgumentException("capacity and maxBatchSize must be positive");
+        }
+        mUiCallback = uiCallback;
+        mStore = store;
+        mMaxBatchSize = maxBatchSize;
+        mQueue = new ArrayBlockingQueue<Object>(capacity);
+        mWorker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        }, TAG);
+        // Never keeps the process alive; close() still has to be called to release the callbacks.
+        mWorker.setDaemon(true);
+        mWorker.start();
+    }
+
+    /**
+     * Applies the dismissal through the {@link UiCallback} and queues the dismissed items for the
+     * {@link Store}. Must be called on the UI thread.
+     *
+     * @param listView               The originating {@link android.widget.ListView}.
+     * @param reverseSortedPositions An array of positions to dismiss, sorted in descending order.
+     * @throws IllegalStateException if {@link #close()} has been called, before the adapter is
+     *                               touched.
+     */
+    public void onDismiss(ListView listView, int[] reverseSortedPositions) {
+        synchronized (mLock) {
+            if (mClosed) {
+                throw new IllegalStateException("DismissCommitter is closed");
+            }
+        }
+        mUiCallback.onDismiss(listView, reverseSortedPositions, mDismissedItems);
+        try {
+            for (int i = 0; i < mDismissedItems.size(); i++) {
+                enqueue(mDismissedItems.get(i));
+            }
+        } finally {
+            mDismissedItems.clear();
+        }
+    }
+
+    /**
+     * Queues one item for the {@link Store}. Never blocks; when the queue is full the item
+     * spills over. Must be called on the same thread as {@link #close()}, normally the UI thread.
+     *
+     * @throws IllegalStateException if {@link #close()} has been called.
+     */
+    public void enqueue(T item) {
+        synchronized (mLock) {
+            if (mClosed) {
+                throw new IllegalStateException("DismissCommitter is closed");
+            }
+            mUncommittedCount++;
+            offerOrSpill(item);
+        }
+    }
+
+    /**
+     * Returns the number of items queued or being committed.
+     */
+    public int getUncommittedCount() {
+        synchronized (mLock) {
+            return mUncommittedCount;
+        }
+    }
+
+    /**
+     * Blocks until every item queued so far has been handed to the {@link Store}.
+     *
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    public void flush() throws InterruptedException {
+        synchronized (mLock) {
+            while (mUncommittedCount > 0) {
+                mLock.wait();
+            }
+        }
+    }
+
+    /**
+     * Stops accepting items. Items already queued are still committed, after which the worker
+     * thread exits. Never blocks. Calling this more than once has no effect.
+     */
+    public void close() {
+        synchronized (mLock) {
+            if (mClosed) {
+                return;
+            }
+            mClosed = true;
+            offerOrSpill(CLOSE);
+        }
+    }
+
+    // Called with mLock held.
+    private void offerOrSpill(Object element) {
+        // Once items have spilled, later ones follow them so that the order is kept.
+        if (!mSpill.isEmpty() || !mQueue.offer(element)) {
+            mSpill.add(element);
+        }
+    }
+
+    /**
+     * Moves up to a batch of spilled items to {@code batch}. Only called once the queue is empty,
+     * since spilled items are newer than queued ones.
+     */
+    private void takeSpilled(List<Object> batch) {
+        synchronized (mLock) {
+            while (batch.size() < mMaxBatchSize && !mSpill.isEmpty()) {
+                batch.add(mSpill.poll());
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void drain() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        List<Object> batch = new ArrayList<Object>(mMaxBatchSize);
+        boolean closing = false;
+        while (!closing) {
+            if (mQueue.drainTo(batch, mMaxBatchSize) == 0) {
+                takeSpilled(batch);
+            }
+            if (batch.isEmpty()) {
+                // Items only spill while the queue is full, so nothing is left behind here.
+                try {
+                    batch.add(mQueue.take());
+                } catch (InterruptedException e) {
+                    continue;
+                }
+                mQueue.drainTo(batch, mMaxBatchSize - 1);
+            }
+
+            int last = batch.size() - 1;
+            if (batch.get(last) == CLOSE) {
+                batch.remove(last);
+                closing = true;
+            }
+            int count = batch.size();
+            if (count > 0) {
+                try {
+                    mStore.commit((List<T>) batch);
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "Failed to commit " + count + " dismissed items", e);
+                }
+            }
+            batch.clear();
+
+            synchronized (mLock) {
+                mUncommittedCount -= count;
+                mLock.notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2013 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hansune.touch;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * A persistent record of dismissed item IDs, used to filter dismissed items out of a data set at
+ * startup without parsing anything.
+ *
+ * <p>The journal is made of two memory-mapped files next to each other:</p>
+ * <ul>
+ *     <li>{@code <name>.journal}, an append-only log of 64-bit IDs. Its first 8 bytes hold the
+ *     number of entries, which is written after each entry so that a crash leaves a valid
+ *     prefix.</li>
+ *     <li>{@code <name>.index}, a sorted array of unique 64-bit IDs produced by
+ *     {@link #compact()}. It is searched in place.</li>
+ * </ul>
+ *
+ * <p>{@link #contains(long)} is a binary search over the index plus a binary search over the
+ * entries appended since the last compaction, so it runs in O(log n). Call {@link #compact()}
+ * from a background thread whenever {@link #needsCompaction()} returns true; all methods are
+ * thread-safe. A compaction only holds the lock to take a snapshot and to swap in its result, so
+ * {@link #append(long)} on the UI thread never waits for its I/O.</p>
+ *
+ * <p>Hand a journal to {@link SwipeDismissListViewTouchListener#setDismissalJournal(DismissalJournal)}
+ * to record the stable ID of every dismissed row.</p>
+ *
+ * <br>
+ * 사라진 아이템의 ID를 파일에 기록하여, 앱 시작 시 파싱 없이 빠르게 걸러낼 수 있게 한다.
+ *
+ * @see SwipeDismissListViewTouchListener
+ */
+public class DismissalJournal {
+
+    /** Default number of journal entries after which {@link #needsCompaction()} returns true. */
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 4096;
+
+    private static final int HEADER_SIZE = 8;
+    private static final int ID_SIZE = 8;
+
+    private final File mJournalFile;
+    private final File mIndexFile;
+    private final int mCompactionThreshold;
+    private final Object mCompactionLock = new Object();
+
+    private RandomAccessFile mJournal;
+    private MappedByteBuffer mJournalBuffer;
+    private int mJournalCapacity; // in entries
+    private int mJournalCount;
+
+    private LongBuffer mIndex; // sorted, unique
+    private long[] mTail;      // sorted, entries appended since the last compaction
+    private int mTailSize;
+
+    /**
+     * Opens, or creates, the journal named {@code name} in {@code directory} with
+     * {@link #DEFAULT_COMPACTION_THRESHOLD}.
+     *
+     * @throws IOException if the files cannot be created or mapped.
+     */
+    public DismissalJournal(File directory, String name) throws IOException {
+        this(directory, name, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Opens, or creates, the journal named {@code name} in {@code directory}.
+     *
+     * @param compactionThreshold Number of journal entries after which
+     *                            {@link #needsCompaction()} returns true.
+     * @throws IOException if the files cannot be created or mapped.
+     */
+    public DismissalJournal(File directory, String name, int compactionThreshold)
+            throws IOException {
+        mJournalFile = new File(directory, name + ".journal");
+        mIndexFile = new File(directory, name + ".index");
+        mCompactionThreshold = Math.max(1, compactionThreshold);
+
+        mIndex = mapIndex(mIndexFile);
+
+        mJournal = new RandomAccessFile(mJournalFile, "rw");
+        long length = mJournal.length();
+        int capacity = length < HEADER_SIZE
+                ? mCompactionThreshold
+                : (int) ((length - HEADER_SIZE) / ID_SIZE);
+        mapJournal(Math.max(capacity, 1));
+        mJournalCount = (int) Math.min(mJournalBuffer.getLong(0), mJournalCapacity);
+
+        mTail = new long[Math.max(mJournalCount, 16)];
+        for (int i = 0; i < mJournalCount; i++) {
+            mTail[i] = mJournalBuffer.getLong(HEADER_SIZE + i * ID_SIZE);
+        }
+        Arrays.sort(mTail, 0, mJournalCount);
+        mTailSize = mJournalCount;
+    }
+
+    /**
+     * Appends one dismissed ID to the journal.
+     *
+     * @throws IOException if the journal had to grow and could not be remapped.
+     */
+    public synchronized void append(long id) throws IOException {
+        if (mJournal == null) {
+            throw new IllegalStateException("DismissalJournal is closed");
+        }
+        if (mJournalCount == mJournalCapacity) {
+            mapJournal(mJournalCapacity * 2);
+        }
+        mJournalBuffer.putLong(HEADER_SIZE + mJournalCount * ID_SIZE, id);
+        mJournalCount++;
+        mJournalBuffer.putLong(0, mJournalCount);
+
+        int insertion = Arrays.binarySearch(mTail, 0, mTailSize, id);
+        if (insertion >= 0) {
+            return;
+        }
+        insertion = -insertion - 1;
+        if (mTailSize == mTail.length) {
+            mTail = Arrays.copyOf(mTail, mTail.length * 2);
+        }
+        System.arraycopy(mTail, insertion, mTail, insertion + 1, mTailSize - insertion);
+        mTail[insertion] = id;
+        mTailSize++;
+    }
+
+    /**
+     * Returns whether {@code id} has been dismissed.
+     */
+    public synchronized boolean contains(long id) {
+        return Arrays.binarySearch(mTail, 0, mTailSize, id) >= 0 || indexContains(id);
+    }
+
+    /**
+     * Returns the number of entries appended since the last compaction.
+     */
+    public synchronized int getJournalCount() {
+        return mJournalCount;
+    }
+
+    /**
+     * Returns whether the journal has grown past its compaction threshold.
+     */
+    public synchronized boolean needsCompaction() {
+        return mJournalCount >= mCompactionThreshold;
+    }
+
+    /**
+     * Merges the journal into the sorted index and truncates the journal. The cost is linear in
+     * the total number of dismissed IDs, so call this from a background thread. Entries appended
+     * while the merge runs are kept for the next compaction.
+     *
+     * @throws IOException if the index cannot be written.
+     */
+    public void compact() throws IOException {
+        synchronized (mCompactionLock) {
+            LongBuffer index;
+            long[] tail;
+            int compactedCount;
+            synchronized (this) {
+                if (mJournalCount == 0) {
+                    return;
+                }
+                index = mIndex;
+                tail = Arrays.copyOf(mTail, mTailSize);
+                compactedCount = mJournalCount;
+            }
+
+            LongBuffer merged = writeIndex(index, tail);
+
+            synchronized (this) {
+                mIndex = merged;
+                if (mJournal == null) {
+                    // Closed meanwhile; the journal entries are now duplicates of the index.
+                    return;
+                }
+                // Move the entries appended during the merge to the front of the journal.
+                int remaining = mJournalCount - compactedCount;
+                for (int i = 0; i < remaining; i++) {
+                    mJournalBuffer.putLong(HEADER_SIZE + i * ID_SIZE,
+                            mJournalBuffer.getLong(HEADER_SIZE + (compactedCount + i) * ID_SIZE));
+                }
+                mJournalCount = remaining;
+                mJournalBuffer.putLong(0, remaining);
+
+                mTailSize = 0;
+                if (remaining > mTail.length) {
+                    mTail = new long[remaining];
+                }
+                for (int i = 0; i < remaining; i++) {
+                    mTail[i] = mJournalBuffer.getLong(HEADER_SIZE + i * ID_SIZE);
+                }
+                Arrays.sort(mTail, 0, remaining);
+                for (int i = 0; i < remaining; i++) {
+                    if (mTailSize == 0 || mTail[i] != mTail[mTailSize - 1]) {
+                        mTail[mTailSize++] = mTail[i];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Releases the journal file. The mapped index stays readable until this object is collected.
+     *
+     * @throws IOException if the journal cannot be closed.
+     */
+    public synchronized void close() throws IOException {
+        if (mJournal == null) {
+            return;
+        }
+        mJournalBuffer.force();
+        mJournal.close();
+        mJournal = null;
+    }
+
+    private boolean indexContains(long id) {
+        int low = 0;
+        int high = mIndex.limit() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long value = mIndex.get(mid);
+            if (value < id) {
+                low = mid + 1;
+            } else if (value > id) {
+                high = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes the union of {@code index} and {@code tail}, both sorted, to a new index file and
+     * maps it.
+     */
+    private LongBuffer writeIndex(LongBuffer index, long[] tail) throws IOException {
+        int indexSize = index.limit();
+        File tmpFile = new File(mIndexFile.getPath() + ".tmp");
+        RandomAccessFile tmp = new RandomAccessFile(tmpFile, "rw");
+        int mergedSize = 0;
+        try {
+            tmp.setLength((long) (indexSize + tail.length) * ID_SIZE);
+            MappedByteBuffer out = tmp.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+                    (long) (indexSize + tail.length) * ID_SIZE);
+            int i = 0;
+            int j = 0;
+            long last = 0;
+            while (i < indexSize || j < tail.length) {
+                long next;
+                if (j == tail.length || (i < indexSize && index.get(i) <= tail[j])) {
+                    next = index.get(i++);
+                } else {
+                    next = tail[j++];
+                }
+                if (mergedSize == 0 || next != last) {
+                    out.putLong(next);
+                    mergedSize++;
+                    last = next;
+                }
+            }
+            out.force();
+            tmp.setLength((long) mergedSize * ID_SIZE);
+        } finally {
+            tmp.close();
+        }
+        // Until the journal is trimmed, its entries merely duplicate the new index.
+        if (!tmpFile.renameTo(mIndexFile)) {
+            throw new IOException("Cannot replace " + mIndexFile);
+        }
+        return mapIndex(mIndexFile);
+    }
+
+    private void mapJournal(int capacity) throws IOException {
+        long size = HEADER_SIZE + (long) capacity * ID_SIZE;
+        if (mJournal.length() < size) {
+            mJournal.setLength(size);
+        }
+        mJournalBuffer = mJournal.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        mJournalCapacity = capacity;
+    }
+
+    private static LongBuffer mapIndex(File indexFile) throws IOException {
+        if (!indexFile.exists()) {
+            return LongBuffer.allocate(0);
+        }
+        RandomAccessFile index = new RandomAccessFile(indexFile, "r");
+        try {
+            // The mapping stays valid after the file is closed.
+            long size = index.length() - index.length() % ID_SIZE;
+            return index.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, size).asLongBuffer();
+        } finally {
+            index.close();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2013 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hansune.touch;
+
+import android.content.Context;
+import android.widget.ArrayAdapter;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * An {@link android.widget.ArrayAdapter} that removes a whole batch of dismissed positions in a
+ * single pass over its backing list, followed by a single change notification.
+ *
+ * <p>Removing dismissed items one by one with
+ * {@code adapter.remove(adapter.getItem(position))} searches the list and shifts its tail for
+ * every position, and notifies the list view every time. {@link #removePositions(int[])} costs
+ * O(n) for the whole batch.</p>
+ *
+ * <p>Example usage:</p>
+ *
+ * <pre>
+ * SwipeDismissListViewTouchListener touchListener =
+ *         new SwipeDismissListViewTouchListener(
+ *                 listView,
+ *                 new SwipeDismissListViewTouchListener.DismissCallbacks() {
+ *                     public void onDismiss(ListView listView, int[] reverseSortedPositions) {
+ *                         adapter.removePositions(reverseSortedPositions);
+ *                     }
+ *                     ...
+ *                 });
+ * </pre>
+ *
+ * <p>The list passed to the constructor is modified in place. Batch removal is not supported
+ * while the adapter's {@link android.widget.ArrayAdapter#getFilter() filter} is in effect.</p>
+ *
+ * <br>
+ * 사라진 위치들을 한 번에 제거하고, 변경 알림도 한 번만 보내는 {@link android.widget.ArrayAdapter}.
+ *
+ * @param <T> The type of the list items.
+ * @see SwipeDismissListViewTouchListener
+ */
+public class DismissibleArrayAdapter<T> extends ArrayAdapter<T> {
+
+    private final List<T> mObjects;
+
+    /**
+     * Constructor
+     *
+     * @param context  The current context.
+     * @param resource The resource ID for a layout file containing a TextView to use when
+     *                 instantiating views.
+     * @param objects  The objects to represent in the ListView.
+     */
+    public DismissibleArrayAdapter(Context context, int resource, List<T> objects) {
+        super(context, resource, objects);
+        mObjects = objects;
+    }
+
+    /**
+     * Constructor
+     *
+     * @param context            The current context.
+     * @param resource           The resource ID for a layout file containing a layout to use
+     *                           when instantiating views.
+     * @param textViewResourceId The id of the TextView within the layout resource to be
+     *                           populated.
+     * @param objects            The objects to represent in the ListView.
+     */
+    public DismissibleArrayAdapter(Context context, int resource, int textViewResourceId,
+                                   List<T> objects) {
+        super(context, resource, textViewResourceId, objects);
+        mObjects = objects;
+    }
+
+    /**
+     * Removes the items at the given positions and notifies the list view once.
+     * <br>
+     * 주어진 위치의 아이템들을 한 번에 제거한다.
+     *
+     * @param reverseSortedPositions Positions to remove, sorted in descending order, as passed
+     *                               to {@link SwipeDismissListViewTouchListener.DismissCallbacks#onDismiss(android.widget.ListView, int[])}.
+     */
+    public void removePositions(int[] reverseSortedPositions) {
+        if (reverseSortedPositions.length == 0) {
+            return;
+        }
+
+        // Walk the positions from the smallest up; everything before it stays in place.
+        int next = reverseSortedPositions.length - 1;
+        int first = reverseSortedPositions[next];
+        int size = mObjects.size();
+
+        if (mObjects instanceof RandomAccess) {
+            int write = first;
+            for (int read = first; read < size; read++) {
+                if (next >= 0 && reverseSortedPositions[next] == read) {
+                    while (next >= 0 && reverseSortedPositions[next] == read) {
+                        next--;
+                    }
+                    continue;
+                }
+                mObjects.set(write++, mObjects.get(read));
+            }
+            mObjects.subList(write, size).clear();
+        } else {
+            Iterator<T> iterator = mObjects.listIterator(first);
+            for (int read = first; read < size && next >= 0; read++) {
+                iterator.next();
+                if (reverseSortedPositions[next] == read) {
+                    iterator.remove();
+                    while (next >= 0 && reverseSortedPositions[next] == read) {
+                        next--;
+                    }
+                }
+            }
+        }
+
+        notifyDataSetChanged();
+    }
+}
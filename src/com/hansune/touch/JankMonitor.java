@@ -0,0 +1,78 @@
+/*
+ * Copyright 2013 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hansune.touch;
+
+/**
+ * Counts janky frames over a sliding window of frame timestamps and reports when the share of
+ * janky frames goes over a threshold.
+ */
+class JankMonitor {
+
+    // A frame is janky when it takes longer than one and a half 60 Hz frames.
+    private static final long JANK_INTERVAL_MILLIS = 25;
+    // Gaps this long mean nothing was animating, not that a frame was dropped.
+    private static final long IDLE_INTERVAL_MILLIS = 250;
+    private static final int WINDOW_FRAMES = 30;
+    private static final int JANK_FRAMES_THRESHOLD = 6;
+
+    private long mLastFrameTime = -1;
+    private int mFrames;
+    private int mJankFrames;
+
+    /**
+     * Forgets the previous frame when animations stop, so that the gap until they start again is
+     * not counted, however short it is.
+     */
+    void pause() {
+        mLastFrameTime = -1;
+    }
+
+    /**
+     * Forgets everything measured so far.
+     */
+    void reset() {
+        mLastFrameTime = -1;
+        mFrames = 0;
+        mJankFrames = 0;
+    }
+
+    /**
+     * Records one frame.
+     *
+     * @return true when the window that just closed had too many janky frames.
+     */
+    boolean onFrame(long frameTimeMillis) {
+        long interval = frameTimeMillis - mLastFrameTime;
+        boolean measured = mLastFrameTime >= 0 && interval > 0 && interval < IDLE_INTERVAL_MILLIS;
+        mLastFrameTime = frameTimeMillis;
+        if (!measured) {
+            return false;
+        }
+
+        mFrames++;
+        if (interval > JANK_INTERVAL_MILLIS) {
+            mJankFrames++;
+        }
+        if (mFrames < WINDOW_FRAMES) {
+            return false;
+        }
+        boolean janky = mJankFrames >= JANK_FRAMES_THRESHOLD;
+        mFrames = 0;
+        mJankFrames = 0;
+        return janky;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2013 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hansune.touch;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+
+/**
+ * Draws what a swiped row reveals (a background color, an optional icon and an optional label)
+ * directly on the list's canvas, so that rows need no extra background views.
+ *
+ * <p>Hand it to
+ * {@link SwipeDismissListViewTouchListener#setLeaveBehindDecoration(LeaveBehindDecoration)}.
+ * Subclasses may override {@link #onDraw(android.graphics.Canvas, android.graphics.Rect, int, boolean)}
+ * to draw something else.</p>
+ *
+ * <br>
+ * 밀린 아이템 뷰 뒤에 드러나는 배경, 아이콘, 글자를 리스트 캔버스에 직접 그린다.
+ *
+ * @see SwipeDismissListViewTouchListener
+ */
+public class LeaveBehindDecoration {
+
+    private final Paint mBackgroundPaint = new Paint();
+    private final Paint mLabelPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private Drawable mIcon;
+    private String mLabel;
+    private int mPadding;
+
+    /**
+     * @param backgroundColor Color of the revealed area.
+     * @param icon            Icon drawn at the revealed edge, or null.
+     * @param label           Label drawn next to the icon, or null.
+     */
+    public LeaveBehindDecoration(int backgroundColor, Drawable icon, String label) {
+        mBackgroundPaint.setColor(backgroundColor);
+        mLabelPaint.setColor(0xFFFFFFFF);
+        mIcon = icon;
+        mLabel = label;
+    }
+
+    /**
+     * Sets the label text size, in pixels.
+     */
+    public void setLabelTextSize(float textSize) {
+        mLabelPaint.setTextSize(textSize);
+    }
+
+    /**
+     * Sets the label color. White by default.
+     */
+    public void setLabelColor(int color) {
+        mLabelPaint.setColor(color);
+    }
+
+    /**
+     * Sets the space between the revealed edge, the icon and the label, in pixels.
+     */
+    public void setPadding(int padding) {
+        mPadding = padding;
+    }
+
+    /**
+     * Draws the revealed area of one row. The canvas is already clipped to {@code bounds}.
+     *
+     * @param canvas         The list's canvas.
+     * @param bounds         The revealed area, in list coordinates.
+     * @param position       The adapter position of the row.
+     * @param revealedOnLeft True when the row was swiped to the right.
+     */
+    public void onDraw(Canvas canvas, Rect bounds, int position, boolean revealedOnLeft) {
+        canvas.drawRect(bounds, mBackgroundPaint);
+
+        // Anchor the content to the edge the row slid away from.
+        int edge = revealedOnLeft ? bounds.left + mPadding : bounds.right - mPadding;
+        int direction = revealedOnLeft ? 1 : -1;
+        if (mIcon != null) {
+            int width = mIcon.getIntrinsicWidth();
+            int height = mIcon.getIntrinsicHeight();
+            int top = bounds.centerY() - height / 2;
+            int left = revealedOnLeft ? edge : edge - width;
+            mIcon.setBounds(left, top, left + width, top + height);
+            mIcon.draw(canvas);
+            edge += direction * (width + mPadding);
+        }
+        if (mLabel != null) {
+            mLabelPaint.setTextAlign(revealedOnLeft ? Paint.Align.LEFT : Paint.Align.RIGHT);
+            float baseline = bounds.centerY() - (mLabelPaint.descent() + mLabelPaint.ascent()) / 2;
+            canvas.drawText(mLabel, edge, baseline, mLabelPaint);
+        }
+    }
+}
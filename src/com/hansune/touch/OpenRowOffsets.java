@@ -0,0 +1,76 @@
+/*
+ * Copyright 2013 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hansune.touch;
+
+import java.util.Arrays;
+
+/**
+ * A sparse map from row key (stable ID or position) to the horizontal offset of an open row.
+ *
+ * <p>Keys are kept sorted in a primitive array next to their offsets, so a lookup is a binary
+ * search and nothing is boxed. Only a handful of rows are ever open at once.</p>
+ */
+class OpenRowOffsets {
+
+    private long[] mKeys = new long[4];
+    private float[] mOffsets = new float[4];
+    private int mSize;
+
+    /**
+     * Returns the offset stored for {@code key}, or {@code defaultOffset}.
+     */
+    float get(long key, float defaultOffset) {
+        int index = Arrays.binarySearch(mKeys, 0, mSize, key);
+        return index < 0 ? defaultOffset : mOffsets[index];
+    }
+
+    void put(long key, float offset) {
+        int index = Arrays.binarySearch(mKeys, 0, mSize, key);
+        if (index >= 0) {
+            mOffsets[index] = offset;
+            return;
+        }
+        index = -index - 1;
+        if (mSize == mKeys.length) {
+            mKeys = Arrays.copyOf(mKeys, mSize * 2);
+            mOffsets = Arrays.copyOf(mOffsets, mSize * 2);
+        }
+        System.arraycopy(mKeys, index, mKeys, index + 1, mSize - index);
+        System.arraycopy(mOffsets, index, mOffsets, index + 1, mSize - index);
+        mKeys[index] = key;
+        mOffsets[index] = offset;
+        mSize++;
+    }
+
+    void remove(long key) {
+        int index = Arrays.binarySearch(mKeys, 0, mSize, key);
+        if (index < 0) {
+            return;
+        }
+        System.arraycopy(mKeys, index + 1, mKeys, index, mSize - index - 1);
+        System.arraycopy(mOffsets, index + 1, mOffsets, index, mSize - index - 1);
+        mSize--;
+    }
+
+    void clear() {
+        mSize = 0;
+    }
+
+    int size() {
+        return mSize;
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2013 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hansune.touch;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.Arrays;
+
+/**
+ * The rows of one dismissal batch, with a geometry snapshot of each row taken when it joined.
+ *
+ * <p>Each row is a slot in a set of parallel primitive arrays: its position, its measured width
+ * and the height of its layout params, which may be a mode such as
+ * {@link android.view.ViewGroup.LayoutParams#WRAP_CONTENT} rather than pixels. The measured
+ * height a collapse starts from is kept by {@link RowAnimationClock}. A row is released at most
+ * once, back to its own layout height, so a batch of mixed-height rows is restored without
+ * guessing.</p>
+ */
+class PendingDismissBatch {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private View[] mViews = new View[INITIAL_CAPACITY];
+    private int[] mPositions = new int[INITIAL_CAPACITY];
+    private int[] mLayoutHeights = new int[INITIAL_CAPACITY];
+    private int[] mWidths = new int[INITIAL_CAPACITY];
+    private int mSize;
+
+    /**
+     * Adds {@code view} and snapshots its geometry.
+     *
+     * @return the slot of the row.
+     */
+    int add(int position, View view) {
+        if (mSize == mViews.length) {
+            int size = mSize * 2;
+            mViews = Arrays.copyOf(mViews, size);
+            mPositions = Arrays.copyOf(mPositions, size);
+            mLayoutHeights = Arrays.copyOf(mLayoutHeights, size);
+            mWidths = Arrays.copyOf(mWidths, size);
+        }
+        ViewGroup.LayoutParams lp = view.getLayoutParams();
+        mViews[mSize] = view;
+        mPositions[mSize] = position;
+        mLayoutHeights[mSize] = lp != null ? lp.height : ViewGroup.LayoutParams.WRAP_CONTENT;
+        mWidths[mSize] = view.getWidth();
+        return mSize++;
+    }
+
+    /**
+     * Returns the slot of {@code view}, or -1 if it is not pending or was released.
+     */
+    int indexOf(View view) {
+        for (int i = 0; i < mSize; i++) {
+            if (mViews[i] == view) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    int size() {
+        return mSize;
+    }
+
+    boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    int getPosition(int index) {
+        return mPositions[index];
+    }
+
+    /**
+     * Returns the row's view, or null once it has been released.
+     */
+    View getView(int index) {
+        return mViews[index];
+    }
+
+    /**
+     * Returns the measured width the row had when it joined the batch.
+     */
+    int getWidth(int index) {
+        return mWidths[index];
+    }
+
+    /**
+     * Returns the pending positions, sorted in descending order.
+     */
+    int[] getReverseSortedPositions() {
+        int[] positions = Arrays.copyOf(mPositions, mSize);
+        sortDescending(positions);
+        return positions;
+    }
+
+    /**
+     * Moves the rows' positions up past rows that were removed from the adapter while these
+     * were still pending.
+     *
+     * @param reverseSortedRemoved The removed positions, sorted in descending order.
+     */
+    void shiftPositions(int[] reverseSortedRemoved) {
+        for (int i = 0; i < mSize; i++) {
+            int shift = 0;
+            for (int removed : reverseSortedRemoved) {
+                if (removed < mPositions[i]) {
+                    shift++;
+                }
+            }
+            mPositions[i] -= shift;
+        }
+    }
+
+    static void sortDescending(int[] positions) {
+        Arrays.sort(positions);
+        for (int i = 0, j = positions.length - 1; i < j; i++, j--) {
+            int position = positions[i];
+            positions[i] = positions[j];
+            positions[j] = position;
+        }
+    }
+
+    /**
+     * Puts the row's layout height back to what it was when it joined and forgets the view, so
+     * the row is restored only once. The row is flagged for measuring; the caller requests the
+     * layout.
+     *
+     * @return the released view, or null if it had been released already.
+     */
+    View release(int index) {
+        View view = mViews[index];
+        if (view == null) {
+            return null;
+        }
+        mViews[index] = null;
+        ViewGroup.LayoutParams lp = view.getLayoutParams();
+        if (lp != null && lp.height != mLayoutHeights[index]) {
+            lp.height = mLayoutHeights[index];
+            view.forceLayout();
+        }
+        return view;
+    }
+
+    /**
+     * Forgets every row. Rows not released yet keep their current geometry.
+     */
+    void clear() {
+        Arrays.fill(mViews, 0, mSize, null);
+        mSize = 0;
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright 2013 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hansune.touch;
+
+import android.animation.ValueAnimator;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.AnimationUtils;
+import android.view.animation.Interpolator;
+
+import java.util.Arrays;
+
+/**
+ * Drives every row animation of one list from a single frame callback.
+ *
+ * <p>Each running animation is a slot in a set of parallel primitive arrays (start time,
+ * duration, start and target translation, alpha and height). On every frame one pass advances all
+ * slots, and collapsing rows are re-measured with a single layout request on the host, however
+ * many rows are animating.</p>
+ */
+class RowAnimationClock implements ValueAnimator.AnimatorUpdateListener {
+
+    static final int PHASE_NONE = 0;
+    /** Translates the row to its target and fades it to its target alpha. */
+    static final int PHASE_FLY_OUT = 1;
+    /** Translates the row back to rest, or to where it stays open, and fades it back in. */
+    static final int PHASE_SETTLE = 2;
+    /** Shrinks the row's height to 1 pixel. */
+    static final int PHASE_COLLAPSE = 3;
+    /** Translates the row vertically to its target, e.g. to make room for a dragged row. */
+    static final int PHASE_SHIFT = 4;
+
+    interface OnRowAnimationEndListener {
+        /**
+         * Called once a slot has finished, after the frame that finished it has been applied.
+         * Not called for slots removed with {@link #cancel(android.view.View)}.
+         */
+        void onRowAnimationEnd(View view, int phase, int position);
+    }
+
+    interface OnFrameListener {
+        /**
+         * Called at the start of every frame the clock runs.
+         */
+        void onFrame(long frameTimeMillis);
+
+        /**
+         * Called when the clock stops running frames, because nothing animates any more.
+         */
+        void onStop();
+    }
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final ViewGroup mHost;
+    private final OnRowAnimationEndListener mListener;
+    private final Interpolator mInterpolator = new AccelerateDecelerateInterpolator();
+    private final ValueAnimator mTicker;
+    private OnFrameListener mFrameListener;
+    private boolean mHeld;
+
+    private View[] mViews = new View[INITIAL_CAPACITY];
+    private int[] mPhases = new int[INITIAL_CAPACITY];
+    private int[] mPositions = new int[INITIAL_CAPACITY];
+    private long[] mStartTimes = new long[INITIAL_CAPACITY];
+    private long[] mDurations = new long[INITIAL_CAPACITY];
+    private float[] mStartTranslations = new float[INITIAL_CAPACITY];
+    private float[] mTargetTranslations = new float[INITIAL_CAPACITY];
+    private float[] mStartAlphas = new float[INITIAL_CAPACITY];
+    private float[] mTargetAlphas = new float[INITIAL_CAPACITY];
+    private int[] mStartHeights = new int[INITIAL_CAPACITY];
+    private int mCount;
+
+    // Finished slots, handed to the listener after the frame has been applied
+    private View[] mEndedViews = new View[INITIAL_CAPACITY];
+    private int[] mEndedPhases = new int[INITIAL_CAPACITY];
+    private int[] mEndedPositions = new int[INITIAL_CAPACITY];
+
+    RowAnimationClock(ViewGroup host, OnRowAnimationEndListener listener) {
+        mHost = host;
+        mListener = listener;
+        mTicker = ValueAnimator.ofFloat(0f, 1f);
+        mTicker.setRepeatCount(ValueAnimator.INFINITE);
+        mTicker.addUpdateListener(this);
+    }
+
+    /**
+     * Starts animating {@code view} from its current state. A running animation of the same view
+     * is replaced without an end callback.
+     *
+     * @param targetTranslation The horizontal target, or the vertical one for
+     *                          {@link #PHASE_SHIFT}. Ignored for {@link #PHASE_COLLAPSE}.
+     * @param targetAlpha       Ignored for {@link #PHASE_COLLAPSE} and {@link #PHASE_SHIFT}.
+     */
+    void animate(View view, int phase, int position, long duration,
+                 float targetTranslation, float targetAlpha) {
+        int slot = indexOf(view);
+        if (slot < 0) {
+            ensureCapacity(mCount + 1);
+            slot = mCount++;
+        }
+        mViews[slot] = view;
+        mPhases[slot] = phase;
+        mPositions[slot] = position;
+        mStartTimes[slot] = AnimationUtils.currentAnimationTimeMillis();
+        mDurations[slot] = Math.max(duration, 1);
+        mStartTranslations[slot] = phase == PHASE_SHIFT
+                ? view.getTranslationY()
+                : view.getTranslationX();
+        mTargetTranslations[slot] = targetTranslation;
+        mStartAlphas[slot] = view.getAlpha();
+        mTargetAlphas[slot] = targetAlpha;
+        mStartHeights[slot] = view.getHeight();
+
+        if (!mTicker.isStarted()) {
+            mTicker.start();
+        }
+    }
+
+    void setOnFrameListener(OnFrameListener listener) {
+        mFrameListener = listener;
+    }
+
+    /**
+     * Keeps the frame callback running while nothing animates, so that frames can be observed
+     * through {@link OnFrameListener}, e.g. while a row follows the finger.
+     */
+    void setHeld(boolean held) {
+        mHeld = held;
+        if (held) {
+            if (!mTicker.isStarted()) {
+                mTicker.start();
+            }
+        } else {
+            stopIfIdle();
+        }
+    }
+
+    /**
+     * Returns the phase {@code view} is animating in, or {@link #PHASE_NONE}.
+     */
+    int getPhase(View view) {
+        int slot = indexOf(view);
+        return slot < 0 ? PHASE_NONE : mPhases[slot];
+    }
+
+    /**
+     * Stops animating {@code view}, leaving it as it is, without an end callback.
+     *
+     * @return the phase it was animating in, or {@link #PHASE_NONE}.
+     */
+    int cancel(View view) {
+        int slot = indexOf(view);
+        if (slot < 0) {
+            return PHASE_NONE;
+        }
+        int phase = mPhases[slot];
+        removeSlot(slot);
+        stopIfIdle();
+        return phase;
+    }
+
+    /**
+     * Stops every animation without end callbacks. Rows that were translating are put back at
+     * rest; collapsing rows keep their current height for the caller to restore.
+     */
+    void cancelAll() {
+        for (int i = 0; i < mCount; i++) {
+            if (mPhases[i] == PHASE_SHIFT) {
+                mViews[i].setTranslationY(0);
+            } else if (mPhases[i] != PHASE_COLLAPSE) {
+                mViews[i].setTranslationX(0);
+                mViews[i].setAlpha(1f);
+            }
+            mViews[i] = null;
+        }
+        mCount = 0;
+        mHeld = false;
+        stopIfIdle();
+    }
+
+    /**
+     * Returns the number of running animations.
+     */
+    int getRunningCount() {
+        return mCount;
+    }
+
+    /**
+     * Runs every phase once on a detached view, so that the classes and code paths used by the
+     * first real animation are loaded and compiled ahead of time.
+     */
+    static void prewarm(ViewGroup scratchHost, View scratchView) {
+        RowAnimationClock clock = new RowAnimationClock(scratchHost,
+                new OnRowAnimationEndListener() {
+                    @Override
+                    public void onRowAnimationEnd(View view, int phase, int position) {
+                    }
+                });
+        int[] phases = {PHASE_FLY_OUT, PHASE_SETTLE, PHASE_COLLAPSE, PHASE_SHIFT};
+        for (int phase : phases) {
+            clock.animate(scratchView, phase, 0, 1, 1, 0);
+            clock.onAnimationUpdate(clock.mTicker);
+            clock.cancel(scratchView);
+        }
+    }
+
+    @Override
+    public void onAnimationUpdate(ValueAnimator animation) {
+        long now = AnimationUtils.currentAnimationTimeMillis();
+        if (mFrameListener != null) {
+            mFrameListener.onFrame(now);
+        }
+        boolean layoutNeeded = false;
+        int ended = 0;
+
+        for (int i = 0; i < mCount; i++) {
+            float fraction = Math.min(1f, (now - mStartTimes[i]) / (float) mDurations[i]);
+            float value = mInterpolator.getInterpolation(Math.max(0f, fraction));
+            View view = mViews[i];
+
+            if (mPhases[i] == PHASE_COLLAPSE) {
+                ViewGroup.LayoutParams lp = view.getLayoutParams();
+                lp.height = mStartHeights[i] - (int) ((mStartHeights[i] - 1) * value);
+                // Flag the row only; the host re-measures all flagged rows in one layout pass.
+                view.forceLayout();
+                layoutNeeded = true;
+            } else if (mPhases[i] == PHASE_SHIFT) {
+                view.setTranslationY(mStartTranslations[i]
+                        + (mTargetTranslations[i] - mStartTranslations[i]) * value);
+            } else {
+                view.setTranslationX(mStartTranslations[i]
+                        + (mTargetTranslations[i] - mStartTranslations[i]) * value);
+                view.setAlpha(mStartAlphas[i] + (mTargetAlphas[i] - mStartAlphas[i]) * value);
+            }
+
+            if (fraction >= 1f) {
+                if (ended == mEndedViews.length) {
+                    mEndedViews = Arrays.copyOf(mEndedViews, ended * 2);
+                    mEndedPhases = Arrays.copyOf(mEndedPhases, ended * 2);
+                    mEndedPositions = Arrays.copyOf(mEndedPositions, ended * 2);
+                }
+                mEndedViews[ended] = view;
+                mEndedPhases[ended] = mPhases[i];
+                mEndedPositions[ended] = mPositions[i];
+                ended++;
+                removeSlot(i);
+                i--;
+            }
+        }
+
+        if (layoutNeeded) {
+            mHost.requestLayout();
+        }
+        stopIfIdle();
+
+        // Listeners may start new animations, so they run after the slots are settled.
+        for (int i = 0; i < ended; i++) {
+            View view = mEndedViews[i];
+            mEndedViews[i] = null;
+            mListener.onRowAnimationEnd(view, mEndedPhases[i], mEndedPositions[i]);
+        }
+    }
+
+    private void stopIfIdle() {
+        if (mCount == 0 && !mHeld && mTicker.isStarted()) {
+            mTicker.cancel();
+            if (mFrameListener != null) {
+                mFrameListener.onStop();
+            }
+        }
+    }
+
+    private int indexOf(View view) {
+        for (int i = 0; i < mCount; i++) {
+            if (mViews[i] == view) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void removeSlot(int slot) {
+        // Move the last slot into the gap; order does not matter.
+        int last = --mCount;
+        mViews[slot] = mViews[last];
+        mPhases[slot] = mPhases[last];
+        mPositions[slot] = mPositions[last];
+        mStartTimes[slot] = mStartTimes[last];
+        mDurations[slot] = mDurations[last];
+        mStartTranslations[slot] = mStartTranslations[last];
+        mTargetTranslations[slot] = mTargetTranslations[last];
+        mStartAlphas[slot] = mStartAlphas[last];
+        mTargetAlphas[slot] = mTargetAlphas[last];
+        mStartHeights[slot] = mStartHeights[last];
+        mViews[last] = null;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= mViews.length) {
+            return;
+        }
+        int size = Math.max(capacity, mViews.length * 2);
+        mViews = Arrays.copyOf(mViews, size);
+        mPhases = Arrays.copyOf(mPhases, size);
+        mPositions = Arrays.copyOf(mPositions, size);
+        mStartTimes = Arrays.copyOf(mStartTimes, size);
+        mDurations = Arrays.copyOf(mDurations, size);
+        mStartTranslations = Arrays.copyOf(mStartTranslations, size);
+        mTargetTranslations = Arrays.copyOf(mTargetTranslations, size);
+        mStartAlphas = Arrays.copyOf(mStartAlphas, size);
+        mTargetAlphas = Arrays.copyOf(mTargetAlphas, size);
+        mStartHeights = Arrays.copyOf(mStartHeights, size);
+    }
+}
@@ -16,22 +16,37 @@
 
 package com.hansune.touch;
 
-import android.animation.Animator;
-import android.animation.AnimatorListenerAdapter;
-import android.animation.ValueAnimator;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.PixelFormat;
 import android.graphics.Rect;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.os.SystemClock;
+import android.util.Log;
+import android.view.HapticFeedbackConstants;
 import android.view.MotionEvent;
 import android.view.VelocityTracker;
 import android.view.View;
 import android.view.ViewConfiguration;
 import android.view.ViewGroup;
 import android.widget.AbsListView;
+import android.widget.BaseAdapter;
+import android.widget.FrameLayout;
+import android.widget.ListAdapter;
 import android.widget.ListView;
+import android.widget.WrapperListAdapter;
 
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * A {@link android.view.View.OnTouchListener} that makes the list items in a {@link android.widget.ListView}
@@ -46,6 +61,13 @@ import java.util.List;
  * ensure that this {@link SwipeDismissListViewTouchListener} is paused during list view
  * scrolling.</p>
  *
+ * <p>The caller should likewise call
+ * {@link android.widget.AbsListView#setRecyclerListener(android.widget.AbsListView.RecyclerListener)}
+ * with the listener returned by {@link #makeRecyclerListener()}, so that animations running on a
+ * row are cancelled when {@link android.widget.ListView} recycles that row for another
+ * position. Rows that are being dismissed are also released when a layout leaves them out of
+ * the list, which is how a data change drops them.</p>
+ *
  * <p>Example usage:</p>
  *
  * <pre>
@@ -54,14 +76,13 @@ import java.util.List;
  *                 listView,
  *                 new SwipeDismissListViewTouchListener.OnDismissCallback() {
  *                     public void onDismiss(ListView listView, int[] reverseSortedPositions) {
- *                         for (int position : reverseSortedPositions) {
- *                             adapter.remove(adapter.getItem(position));
- *                         }
- *                         adapter.notifyDataSetChanged();
+ *                         // adapter is a DismissibleArrayAdapter
+ *                         adapter.removePositions(reverseSortedPositions);
  *                     }
  *                 });
  * listView.setOnTouchListener(touchListener);
  * listView.setOnScrollListener(touchListener.makeScrollListener());
+ * listView.setRecyclerListener(touchListener.makeRecyclerListener());
  * </pre>
  *
  * <p>This class Requires API level 12 or later due to use of {@link
@@ -95,7 +116,23 @@ public class SwipeDismissListViewTouchListener implements View.OnTouchListener {
     /** Left only swiping <br> 왼쪽으로만 밀기 모드*/
     public static final int SWIPE_MODE_LEFT = 2;
 
+    /** Full animations <br> 모든 애니메이션을 사용하는 품질 단계*/
+    public static final int QUALITY_FULL = 0;
+    /** Rows are not faded while swiped or flown out <br> 투명도 변화를 생략하는 품질 단계*/
+    public static final int QUALITY_NO_ALPHA = 1;
+    /** No fading, and the collapse takes half as long <br> 접히는 애니메이션을 짧게 하는 품질 단계*/
+    public static final int QUALITY_SHORT_COLLAPSE = 2;
+    /** No fading, and dismissals are committed without a collapse <br> 접히는 애니메이션 없이 바로 사라지게 하는 품질 단계*/
+    public static final int QUALITY_INSTANT_COMMIT = 3;
+
+    /** Pending dismissals are committed when the list is detached <br> 리스트가 분리될 때 대기 중인 사라짐을 확정한다*/
+    public static final int DETACH_POLICY_FLUSH = 0;
+    /** Pending dismissals are dropped when the list is detached <br> 리스트가 분리될 때 대기 중인 사라짐을 버린다*/
+    public static final int DETACH_POLICY_DROP = 1;
+
     private static final String TAG = "ListViewSwipeTouchListener";
+    // Each ghost holds a full-size bitmap; rows beyond this many fly out as usual.
+    private static final int MAX_GHOSTS = 4;
 
     // Cached ViewConfiguration and system-wide constant values
     private int mSlop;
@@ -106,15 +143,65 @@ public class SwipeDismissListViewTouchListener implements View.OnTouchListener {
     // Fixed properties
     private ListView mListView;
     private DismissCallbacks mCallbacks;
+    private ReorderCallbacks mReorderCallbacks;
+    private Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private DismissalJournal mDismissalJournal;
+    private TombstoneCursorWrapper mTombstoneCursor;
+    private RowAnimationClock mAnimationClock;
+    private TouchPredictor mTouchPredictor;
+    private JankMonitor mJankMonitor = new JankMonitor();
+    private boolean mAdaptiveQuality;
+    private int mQualityTier = QUALITY_FULL;
+    private int mDetachPolicy = DETACH_POLICY_DROP;
+    private LeaveBehindDecoration mLeaveBehindDecoration;
+    private LeaveBehindDrawable mLeaveBehindDrawable;
+    private Rect mLeaveBehindBounds = new Rect();
+    private OpenRowOffsets mOpenRows = new OpenRowOffsets();
+    private boolean mKeepOpen;
+    private boolean mSwipeMany;
+    private boolean mGhostDismiss;
+    private int[] mListViewCoords = new int[2];
+    private Rect mHitRect = new Rect();
     private int mViewWidth = 1; // 1 and not 0 to prevent dividing by zero
 
     // Transient properties
-    private List<PendingDismissData> mPendingDismisses = new ArrayList<PendingDismissData>();
+    private PendingDismissBatch mPendingDismisses = new PendingDismissBatch();
     private int mDismissAnimationRefCount = 0;
+    // Parked rows waiting for confirmation, by position; they join mPendingDismisses once
+    // confirmed.
+    private final List<DismissConfirmation> mAwaitingConfirmation =
+            new ArrayList<DismissConfirmation>();
     private float mDownX;
     private float mDownY;
     private boolean mSwiping;
     private int mSwipingSlop;
+    private float mSwipeTranslationX; // as tracked from the finger, never predicted
+    private float mDownOffset; // open offset of the row when the finger went down
+    // Rows swept by the current gesture, as a range of child indices, see setSwipeManyEnabled
+    private boolean[] mSwept = new boolean[16];
+    private int mSweepFirstIndex = -1;
+    private int mSweepLastIndex = -1;
+    private int mSweepFirstPosition;
+    private boolean mDownCanSwipe;
+    private boolean mDismissLikelyReported;
+    // Snapshots of dismissed rows flying out in the overlay, see setGhostDismiss
+    private View[] mGhosts = new View[4];
+    private Bitmap[] mGhostBitmaps = new Bitmap[4];
+    private int mGhostCount;
+    private int[] mGhostCommitPositions = new int[4];
+    private int mGhostCommitCount;
+    // Long-press reorder of the current gesture, as child indices, see setReorderCallbacks
+    private boolean mReordering;
+    private int mReorderFromIndex;
+    private int mReorderTargetIndex;
+    private int mReorderFirstPosition;
+    private int mReorderShift; // how far the other rows move to make room
+    private Runnable mLongPressRunnable = new Runnable() {
+        @Override
+        public void run() {
+            startReorder();
+        }
+    };
     private VelocityTracker mVelocityTracker;
     private int mDownPosition;
     private View mDownView;
@@ -170,6 +257,236 @@ public class SwipeDismissListViewTouchListener implements View.OnTouchListener {
         this.mDoDismiss = doDismiss;
     }
 
+    /**
+     * Determine whether swiped rows stay open instead of springing back, when
+     * {@link #isDoDismiss()} is false and {@link #getSwipeDistanceRatio()} is less than 1.
+     * A row swiped past {@link #getDismissDecisionDistanceRatio()} settles at the swipe distance,
+     * and {@link DismissCallbacks#onTryToDismiss} is called once it gets there. Swiping it back
+     * closes it.
+     *
+     * <p>Open rows are remembered by stable ID, or by position when the adapter has no
+     * {@link android.widget.Adapter#hasStableIds() stable IDs}, and are opened again when
+     * {@link android.widget.ListView} brings them back on screen. This needs the scroll listener
+     * from {@link #makeScrollListener()} and the recycler listener from
+     * {@link #makeRecyclerListener()}. Rows keyed by position are closed when a dismissal shifts
+     * the positions.</p>
+     * <br>
+     * 밀린 아이템 뷰가 되돌아가지 않고 열린 채로 남을지 결정한다. 스크롤되어 다시 보일 때도 열린 상태가 유지된다.
+     * @param keepOpen default false.
+     */
+    public void setKeepOpen(boolean keepOpen) {
+        this.mKeepOpen = keepOpen;
+        if (!keepOpen) {
+            closeAll();
+        }
+    }
+
+    /**
+     * Returns whether swiped rows stay open.
+     */
+    public boolean isKeepOpen() {
+        return mKeepOpen;
+    }
+
+    /**
+     * Enables long-press reordering. A long press on a row for which
+     * {@link ReorderCallbacks#canReorder(int)} is true picks it up; it then follows the finger
+     * vertically while the other rows move out of its way, and
+     * {@link ReorderCallbacks#onReorder(android.widget.ListView, int, int)} is called once on
+     * release. Swiping and reordering share one touch pipeline, so no other touch listener is
+     * needed. A picked up row takes the place of the list's own item long click.
+     * <br>
+     * 길게 눌러서 위아래로 끌어 아이템 순서를 바꿀 수 있게 한다.
+     * @param callbacks the callbacks, or null to disable reordering (default).
+     */
+    public void setReorderCallbacks(ReorderCallbacks callbacks) {
+        if (callbacks == null && mReordering) {
+            settleReorder();
+        }
+        this.mReorderCallbacks = callbacks;
+    }
+
+    /**
+     * Determine whether a swiped row is removed from the adapter as soon as the finger is lifted.
+     * The row is snapshotted into a bitmap in the list view's overlay, and
+     * {@link DismissCallbacks#onDismiss(android.widget.ListView, int[])} is called right away;
+     * only the snapshot flies out. The row's view is free for another position at once, so the
+     * data never lags the screen and scrolling during the animation binds nothing extra. The
+     * rows below move up without a collapse animation.
+     *
+     * <p>Requires API level 18 for the overlay; below that, and for rows waiting for an
+     * {@link AsyncDismissCallbacks} confirmation, rows are dismissed as usual. At most a few
+     * snapshots fly at once, since each one is a bitmap as large as the row; the other rows of a
+     * large sweep are dismissed as usual too.</p>
+     * <br>
+     * 손을 떼는 즉시 어댑터에서 아이템을 지우고, 화면에는 아이템 뷰의 스냅샷만 날아가게 할지 결정한다.
+     * @param ghostDismiss default false.
+     */
+    public void setGhostDismiss(boolean ghostDismiss) {
+        this.mGhostDismiss = ghostDismiss;
+    }
+
+    /**
+     * Returns whether swiped rows are removed from the adapter as soon as the finger is lifted.
+     */
+    public boolean isGhostDismiss() {
+        return mGhostDismiss;
+    }
+
+    /**
+     * Determine whether a swipe can be swept over several rows. Once a row is being swiped,
+     * moving the finger up or down drags every row it passes along with it, and when the finger
+     * is lifted they are all dismissed, or all put back, together. The rows reach
+     * {@link DismissCallbacks#onDismiss(android.widget.ListView, int[])} as one batch.
+     * Only used while {@link #isDoDismiss()} is true.
+     * <br>
+     * 밀기 도중 손가락을 위아래로 움직이면 지나간 아이템 뷰들을 함께 밀어서 한 번에 사라지게 할지 결정한다.
+     * @param enabled default false.
+     */
+    public void setSwipeManyEnabled(boolean enabled) {
+        this.mSwipeMany = enabled;
+    }
+
+    /**
+     * Returns whether a swipe can be swept over several rows.
+     */
+    public boolean isSwipeManyEnabled() {
+        return mSwipeMany;
+    }
+
+    /**
+     * Returns whether the row at {@code position} is open.
+     * <br>
+     * 해당 위치의 아이템 뷰가 열려 있는지 여부
+     */
+    public boolean isOpen(int position) {
+        return mOpenRows.get(getOpenRowKey(position), 0) != 0;
+    }
+
+    /**
+     * Closes every open row. Only rows on screen are animated; the others are just forgotten.
+     * <br>
+     * 열려 있는 모든 아이템 뷰를 닫는다.
+     */
+    public void closeAll() {
+        closeOpenRows(ListView.INVALID_POSITION);
+    }
+
+    /**
+     * Closes every open row except the one at {@code position}. Only rows on screen are animated.
+     * <br>
+     * 해당 위치를 제외한 열려 있는 모든 아이템 뷰를 닫는다.
+     */
+    public void closeOthers(int position) {
+        closeOpenRows(position);
+    }
+
+    private void closeOpenRows(int keepPosition) {
+        long keepKey = getOpenRowKey(keepPosition);
+        float keepOffset = keepPosition == ListView.INVALID_POSITION
+                ? 0
+                : mOpenRows.get(keepKey, 0);
+        mOpenRows.clear();
+        if (keepOffset != 0) {
+            mOpenRows.put(keepKey, keepOffset);
+        }
+
+        int firstPosition = mListView.getFirstVisiblePosition();
+        int childCount = mListView.getChildCount();
+        for (int i = 0; i < childCount; i++) {
+            View child = mListView.getChildAt(i);
+            if (firstPosition + i == keepPosition || !isAtRest(child, firstPosition + i)
+                    || child.getTranslationX() == 0) {
+                continue;
+            }
+            mAnimationClock.animate(child, RowAnimationClock.PHASE_SETTLE,
+                    ListView.INVALID_POSITION, mAnimationTime, 0, 1);
+        }
+    }
+
+    private boolean isKeepOpenActive() {
+        return mKeepOpen && !mDoDismiss && swipeDistanceRatio < 1;
+    }
+
+    private long getOpenRowKey(int position) {
+        if (position != ListView.INVALID_POSITION && mListView.getAdapter() != null
+                && mListView.getAdapter().hasStableIds()) {
+            return mListView.getItemIdAtPosition(position);
+        }
+        return position;
+    }
+
+    private boolean isAtRest(View child, int position) {
+        return child != mDownView
+                && mAnimationClock.getPhase(child) == RowAnimationClock.PHASE_NONE
+                && mPendingDismisses.indexOf(child) < 0
+                && !isAwaitingConfirmation(position);
+    }
+
+    private void reapplyOpenOffsets() {
+        if (!mKeepOpen) {
+            return;
+        }
+        // Recycled rows come back at rest; put the open ones back where they were.
+        boolean changed = false;
+        int firstPosition = mListView.getFirstVisiblePosition();
+        int childCount = mListView.getChildCount();
+        for (int i = 0; i < childCount; i++) {
+            View child = mListView.getChildAt(i);
+            if (!isAtRest(child, firstPosition + i)) {
+                continue;
+            }
+            float offset = mOpenRows.get(getOpenRowKey(firstPosition + i), 0);
+            if (child.getTranslationX() != offset) {
+                child.setTranslationX(offset);
+                changed = true;
+            }
+        }
+        if (changed && mLeaveBehindDecoration != null) {
+            invalidateLeaveBehinds();
+        }
+    }
+
+    private void reapplyParkedRows() {
+        // A data change may rebind a parked item to another view; park whichever view shows it.
+        for (int i = 0; i < mAwaitingConfirmation.size(); i++) {
+            DismissConfirmation confirmation = mAwaitingConfirmation.get(i);
+            View child = getChildAtPosition(confirmation.mParkedPosition);
+            if (child == null
+                    || mAnimationClock.getPhase(child) != RowAnimationClock.PHASE_NONE) {
+                continue;
+            }
+            child.setTranslationX(confirmation.mParkedX);
+            child.setAlpha(getParkedAlpha());
+        }
+    }
+
+    private View getChildAtPosition(int position) {
+        int index = position - mListView.getFirstVisiblePosition();
+        return index >= 0 && index < mListView.getChildCount() ? mListView.getChildAt(index) : null;
+    }
+
+    private void settleOpenRow(boolean open, boolean openRight) {
+        long key = getOpenRowKey(mDownPosition);
+        boolean wasOpen = mOpenRows.get(key, 0) != 0;
+        if (!mSwiping) {
+            // A tap; leave the row as it was, e.g. after catching it mid-settle.
+            mAnimationClock.animate(mDownView, RowAnimationClock.PHASE_SETTLE,
+                    ListView.INVALID_POSITION, mAnimationTime, mOpenRows.get(key, 0), 1);
+            return;
+        }
+        float openOffset = open ? limitSwipeDelta(openRight ? mViewWidth : -mViewWidth) : 0;
+        if (openOffset != 0) {
+            mOpenRows.put(key, openOffset);
+        } else {
+            mOpenRows.remove(key);
+        }
+        // onTryToDismiss is called once the row has opened, not every time it is touched.
+        mAnimationClock.animate(mDownView, RowAnimationClock.PHASE_SETTLE,
+                openOffset != 0 && !wasOpen ? mDownPosition : ListView.INVALID_POSITION,
+                mAnimationTime, openOffset, 1);
+    }
+
     /**
      * Set the movable distance in ratio to the length of the item view.
      * If the distance is less than the value of {@link #getDismissDecisionDistanceRatio()},
@@ -254,6 +571,151 @@ public class SwipeDismissListViewTouchListener implements View.OnTouchListener {
         void onTryToDismiss(View childView, int position);
     }
 
+    /**
+     * A variant of {@link DismissCallbacks} for dismissals that need to be confirmed
+     * asynchronously, e.g. by a server. When the callbacks given to the constructor implement
+     * this interface, a swiped row does not fly out right away. It stays parked at the dismiss
+     * decision distance, half faded, and
+     * {@link #onConfirmDismiss(android.widget.ListView, int, DismissConfirmation)} is called.
+     * Once the client calls {@link DismissConfirmation#confirm()} the row is dismissed as usual;
+     * after {@link DismissConfirmation#reject()} it slides back. Any number of rows may be
+     * waiting at once. A waiting row does not hold back other dismissals: it only joins a batch
+     * for {@link DismissCallbacks#onDismiss(android.widget.ListView, int[])} once it is confirmed
+     * and starts to fly out.
+     *
+     * <p>Confirmations still waiting when the list view is detached are dropped; answering them
+     * afterwards does nothing. A local fake backend can answer by posting {@code confirm()} or
+     * {@code reject()} with a delay.</p>
+     * <br>
+     * 서버 확인 등 비동기 확인이 필요한 사라짐을 위한 콜백. 확인을 기다리는 동안 아이템 뷰는 대기 상태로 남는다.
+     */
+    public interface AsyncDismissCallbacks extends DismissCallbacks {
+        /**
+         * Called on the UI thread when the user has swiped the row at {@code position} away.
+         * Answer through {@code confirmation}, from any thread. Must not block.
+         *
+         * @param listView     The originating {@link android.widget.ListView}.
+         * @param position     The position waiting for confirmation.
+         * @param confirmation The handle to answer with.
+         */
+        void onConfirmDismiss(ListView listView, int position, DismissConfirmation confirmation);
+    }
+
+    /**
+     * An optional addition to {@link DismissCallbacks}, detected when the callbacks given to the
+     * constructor also implement it. It tells the client early that a row is about to be
+     * dismissed, before the fly-out and collapse start, e.g. to bind or prefetch the row at
+     * {@link android.widget.ListView#getLastVisiblePosition()} + 1 that will scroll into view
+     * while the dismissed row collapses.
+     * <br>
+     * 아이템 뷰가 사라질 가능성이 높아졌을 때 미리 알려주는 콜백. 새로 보이게 될 아이템을 미리 준비하는 데 쓴다.
+     */
+    public interface DismissIntentCallbacks {
+        /**
+         * Called at most once per swipe, as soon as the row is dragged past
+         * {@link #getDismissDecisionDistanceRatio()} or flung, and in any case before it starts
+         * to fly out. It is only a hint: the user may still drag the row back.
+         *
+         * @param position The position likely to be dismissed.
+         */
+        void onDismissLikely(int position);
+    }
+
+    /**
+     * The completion handle of one dismissal waiting for confirmation, see
+     * {@link AsyncDismissCallbacks}. Only the first answer counts. Answers may come from any
+     * thread and are applied on the UI thread.
+     * <br>
+     * 확인을 기다리는 사라짐 하나에 대한 응답 핸들.
+     */
+    public final class DismissConfirmation {
+        private final int mPosition;
+        private final AtomicBoolean mAnswered = new AtomicBoolean();
+        private boolean mConfirmed;
+        private boolean mApplied; // UI thread only
+        private int mParkedPosition; // UI thread only, follows commits and reorders
+        private float mParkedX;
+
+        private DismissConfirmation(int position) {
+            mPosition = position;
+        }
+
+        /**
+         * Returns the position the row had when it was swiped.
+         */
+        public int getPosition() {
+            return mPosition;
+        }
+
+        /**
+         * Dismisses the row.
+         * <br>
+         * 아이템 뷰를 사라지게 한다.
+         */
+        public void confirm() {
+            answer(true);
+        }
+
+        /**
+         * Slides the row back; it is not dismissed.
+         * <br>
+         * 아이템 뷰를 원래 자리로 되돌린다.
+         */
+        public void reject() {
+            answer(false);
+        }
+
+        /**
+         * Returns whether {@link #confirm()} or {@link #reject()} has been called.
+         */
+        public boolean isAnswered() {
+            return mAnswered.get();
+        }
+
+        private void answer(final boolean confirmed) {
+            if (!mAnswered.compareAndSet(false, true)) {
+                return;
+            }
+            mMainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    mConfirmed = confirmed;
+                    onConfirmationAnswered(DismissConfirmation.this);
+                }
+            });
+        }
+    }
+
+    /**
+     * The callback interface used by {@link SwipeDismissListViewTouchListener} to let its client
+     * reorder list items with a long press and a vertical drag.
+     * <br>
+     * 길게 눌러서 위아래로 끌어 아이템 순서를 바꿀 때 사용하는 콜백.
+     *
+     * @see #setReorderCallbacks(ReorderCallbacks)
+     */
+    public interface ReorderCallbacks {
+        /**
+         * Called to determine whether the given position can be picked up by a long press, and
+         * whether a dragged row can be dropped there.
+         */
+        boolean canReorder(int position);
+
+        /**
+         * Called once when a dragged row is dropped somewhere else. However many rows it passed
+         * on its way, the whole drag is reported as a single move. The rows are back in their
+         * laid out places when this is called; the adapter is expected to move the item and
+         * notify its observers.
+         * <br>
+         * 끌던 아이템 뷰를 놓았을 때 한 번 호출된다.
+         *
+         * @param listView     The originating {@link android.widget.ListView}.
+         * @param fromPosition The position the row was picked up at.
+         * @param toPosition   The position it was dropped at.
+         */
+        void onReorder(ListView listView, int fromPosition, int toPosition);
+    }
+
     /**
      * Constructs a new swipe-to-dismiss touch listener for the given list view.
      *
@@ -270,6 +732,46 @@ public class SwipeDismissListViewTouchListener implements View.OnTouchListener {
                 android.R.integer.config_shortAnimTime);
         mListView = listView;
         mCallbacks = callbacks;
+        mAnimationClock = new RowAnimationClock(listView,
+                new RowAnimationClock.OnRowAnimationEndListener() {
+                    @Override
+                    public void onRowAnimationEnd(View view, int phase, int position) {
+                        onRowAnimationFinished(view, phase, position);
+                    }
+                });
+        mAnimationClock.setOnFrameListener(new RowAnimationClock.OnFrameListener() {
+            @Override
+            public void onFrame(long frameTimeMillis) {
+                onAnimationFrame(frameTimeMillis);
+            }
+
+            @Override
+            public void onStop() {
+                mJankMonitor.pause();
+            }
+        });
+        listView.addOnLayoutChangeListener(new View.OnLayoutChangeListener() {
+            @Override
+            public void onLayoutChange(View view, int left, int top, int right, int bottom,
+                                       int oldLeft, int oldTop, int oldRight, int oldBottom) {
+                // Follows rotation and resizing; rows are as wide as the list.
+                if (right - left > 1) {
+                    mViewWidth = right - left;
+                }
+                releaseDetachedRows();
+                reapplyParkedRows();
+            }
+        });
+        listView.addOnAttachStateChangeListener(new View.OnAttachStateChangeListener() {
+            @Override
+            public void onViewAttachedToWindow(View view) {
+            }
+
+            @Override
+            public void onViewDetachedFromWindow(View view) {
+                onListDetached();
+            }
+        });
     }
 
     /**
@@ -281,6 +783,279 @@ public class SwipeDismissListViewTouchListener implements View.OnTouchListener {
         mPaused = !enabled;
     }
 
+    /**
+     * Sets a journal that records the stable ID of every dismissed row, so that dismissed items
+     * can be filtered out quickly on the next start. IDs are appended once
+     * {@link DismissCallbacks#onDismiss(android.widget.ListView, int[])} has returned. Nothing is
+     * recorded unless the adapter {@link android.widget.Adapter#hasStableIds() has stable IDs}.
+     * <br>
+     * 사라진 아이템의 ID를 기록할 저널을 지정한다. 어댑터가 고정 ID를 가질 때만 기록된다.
+     * @param journal the journal, or null to stop recording.
+     */
+    public void setDismissalJournal(DismissalJournal journal) {
+        mDismissalJournal = journal;
+    }
+
+    /**
+     * Sets the {@link TombstoneCursorWrapper} behind the list's {@link android.widget.CursorAdapter},
+     * so that dismissed rows are hidden in it without a requery. Once
+     * {@link DismissCallbacks#onDismiss(android.widget.ListView, int[])} has returned, the
+     * listener hides the dismissed rows and notifies the adapter. While {@code onDismiss} runs the
+     * rows are still visible, so their IDs can be read with
+     * {@link android.widget.ListView#getItemIdAtPosition(int)} and deleted in the background.
+     * <br>
+     * 사라진 아이템을 다시 쿼리하지 않고 숨길 커서를 지정한다.
+     * @param cursor the cursor the adapter shows, or null (default). Set it again whenever the
+     *               adapter is given a new one, e.g. after
+     *               {@link TombstoneCursorWrapper#reconcile(android.database.Cursor)}.
+     */
+    public void setTombstoneCursor(TombstoneCursorWrapper cursor) {
+        mTombstoneCursor = cursor;
+    }
+
+    /**
+     * Sets a predictor that extrapolates the finger position to the next display frame while a
+     * row is being swiped, so that the row lags the finger less. The prediction only affects
+     * how the row is drawn; the dismiss decision always uses the reported finger positions.
+     * <br>
+     * 밀기 중 손가락 위치를 예측하여 아이템 뷰를 그린다. 사라지게 할지 판단할 때는 사용하지 않는다.
+     * @param predictor the predictor, or null to draw rows at the last reported position (default).
+     */
+    public void setTouchPredictor(TouchPredictor predictor) {
+        mTouchPredictor = predictor;
+    }
+
+    /**
+     * Enables or disables adaptive quality. When enabled, the listener watches its own frame
+     * times while a row is swiped or animated, and steps down one quality tier each time too many
+     * frames miss their deadline: {@link #QUALITY_FULL}, {@link #QUALITY_NO_ALPHA},
+     * {@link #QUALITY_SHORT_COLLAPSE}, then {@link #QUALITY_INSTANT_COMMIT}. The tier never steps
+     * back up by itself; see {@link #setQualityTier(int)}.
+     * <br>
+     * 프레임이 밀릴 때 애니메이션 품질을 자동으로 낮출지 결정한다.
+     * @param adaptive default false.
+     */
+    public void setAdaptiveQuality(boolean adaptive) {
+        mAdaptiveQuality = adaptive;
+        mJankMonitor.reset();
+    }
+
+    /**
+     * Returns whether adaptive quality is enabled.
+     */
+    public boolean isAdaptiveQuality() {
+        return mAdaptiveQuality;
+    }
+
+    /**
+     * Sets the current quality tier, e.g. to restore full quality after adaptive quality has
+     * stepped down.
+     * <br>
+     * 현재 애니메이션 품질 단계를 지정한다.
+     * @param tier {@link #QUALITY_FULL}, {@link #QUALITY_NO_ALPHA},
+     *             {@link #QUALITY_SHORT_COLLAPSE}, {@link #QUALITY_INSTANT_COMMIT}
+     */
+    public void setQualityTier(int tier) {
+        mQualityTier = Math.max(QUALITY_FULL, Math.min(QUALITY_INSTANT_COMMIT, tier));
+        mJankMonitor.reset();
+    }
+
+    /**
+     * Returns the current quality tier.
+     * @return {@link #QUALITY_FULL}, {@link #QUALITY_NO_ALPHA},
+     *         {@link #QUALITY_SHORT_COLLAPSE}, {@link #QUALITY_INSTANT_COMMIT}
+     */
+    public int getQualityTier() {
+        return mQualityTier;
+    }
+
+    /**
+     * Runs the touch and animation paths once on detached scratch objects and captures the list
+     * width, so that the first real swipe does not pay for class loading, JIT compilation and
+     * geometry lookups. Call it on the UI thread once the list is set up, or use
+     * {@link #prewarmWhenIdle()}.
+     * <br>
+     * 첫 번째 밀기가 느리지 않도록, 터치와 애니메이션 경로를 미리 한 번 실행해 둔다.
+     */
+    public void prewarm() {
+        if (mListView.getWidth() > 1) {
+            mViewWidth = mListView.getWidth();
+        }
+
+        // Touch pipeline
+        long time = SystemClock.uptimeMillis();
+        MotionEvent down = MotionEvent.obtain(time, time, MotionEvent.ACTION_DOWN, 0, 0, 0);
+        MotionEvent move = MotionEvent.obtain(time, time + 16, MotionEvent.ACTION_MOVE, 8, 0, 0);
+        VelocityTracker velocityTracker = VelocityTracker.obtain();
+        velocityTracker.addMovement(down);
+        velocityTracker.addMovement(move);
+        velocityTracker.computeCurrentVelocity(1000);
+        velocityTracker.getXVelocity();
+        velocityTracker.getYVelocity();
+        velocityTracker.recycle();
+        if (mTouchPredictor != null) {
+            TouchPredictor predictor = new TouchPredictor();
+            predictor.addMovement(down);
+            predictor.addMovement(move);
+            predictor.predictOffset(time + 16);
+        }
+        down.recycle();
+        move.recycle();
+        mListView.getLocationOnScreen(new int[2]);
+        limitSwipeDelta(0);
+
+        // Animation pipeline, on a view that never gets attached
+        FrameLayout scratchHost = new FrameLayout(mListView.getContext());
+        View scratchView = new View(mListView.getContext());
+        scratchView.setLayoutParams(new ViewGroup.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+        setHasTransientState(scratchView, true);
+        RowAnimationClock.prewarm(scratchHost, scratchView);
+        resetViewPresentation(scratchView);
+        setHasTransientState(scratchView, false);
+    }
+
+    /**
+     * Calls {@link #prewarm()} once the UI thread's message queue goes idle, e.g. right after the
+     * first frame of the screen has been drawn. Must be called on the UI thread.
+     * <br>
+     * UI 스레드가 한가해지면 {@link #prewarm()} 을 실행한다.
+     */
+    public void prewarmWhenIdle() {
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+            @Override
+            public boolean queueIdle() {
+                prewarm();
+                return false;
+            }
+        });
+    }
+
+    /**
+     * Determines what happens to dismissals still animating when the list view is detached from
+     * its window, e.g. because the activity finishes in the middle of a batch. In both cases all
+     * animations are cancelled, the rows are restored and no view is held any longer.
+     *
+     * <p>With {@link #DETACH_POLICY_FLUSH},
+     * {@link DismissCallbacks#onDismiss(android.widget.ListView, int[])} and the
+     * {@link DismissalJournal} append run from
+     * {@link android.view.View.OnAttachStateChangeListener#onViewDetachedFromWindow(android.view.View)},
+     * which for a finishing activity comes after {@code onDestroy()}. Whatever they touch must
+     * still be usable then; a journal closed in {@code onDestroy()} is skipped.</p>
+     * <br>
+     * 리스트뷰가 화면에서 분리될 때 애니메이션 중인 사라짐을 어떻게 처리할지 결정한다.
+     * @param policy {@link #DETACH_POLICY_DROP} (default) forgets them,
+     *               {@link #DETACH_POLICY_FLUSH} calls
+     *               {@link DismissCallbacks#onDismiss(android.widget.ListView, int[])} right away.
+     */
+    public void setDetachPolicy(int policy) {
+        mDetachPolicy = policy == DETACH_POLICY_DROP ? DETACH_POLICY_DROP : DETACH_POLICY_FLUSH;
+    }
+
+    /**
+     * Returns what happens to pending dismissals when the list view is detached.
+     * @return {@link #DETACH_POLICY_FLUSH}, {@link #DETACH_POLICY_DROP}
+     */
+    public int getDetachPolicy() {
+        return mDetachPolicy;
+    }
+
+    /**
+     * Sets a decoration that draws what a swiped row reveals (background, icon, label) directly
+     * on the list's canvas, for every row that is currently moved sideways. Rows then need no
+     * background views of their own for swipe-to-reveal.
+     *
+     * <p>On API 18 and later the decoration is drawn through the list view's overlay. On older
+     * versions, call {@link #drawLeaveBehinds(android.graphics.Canvas)} from the list view's
+     * {@code dispatchDraw(Canvas)}, after drawing the children.</p>
+     * <br>
+     * 밀린 아이템 뷰 뒤에 드러나는 영역을 리스트 캔버스에 직접 그리는 데코레이션을 지정한다.
+     * @param decoration the decoration, or null to draw nothing.
+     */
+    public void setLeaveBehindDecoration(LeaveBehindDecoration decoration) {
+        mLeaveBehindDecoration = decoration;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            if (decoration != null && mLeaveBehindDrawable == null) {
+                mLeaveBehindDrawable = new LeaveBehindDrawable();
+                mListView.getOverlay().add(mLeaveBehindDrawable);
+            } else if (decoration == null && mLeaveBehindDrawable != null) {
+                mListView.getOverlay().remove(mLeaveBehindDrawable);
+                mLeaveBehindDrawable = null;
+            }
+        }
+        invalidateLeaveBehinds();
+    }
+
+    /**
+     * Draws the {@link LeaveBehindDecoration} of every row that is moved sideways. Only needed
+     * below API 18; call it from the list view's {@code dispatchDraw(Canvas)} after
+     * {@code super.dispatchDraw(canvas)}. Does nothing when the overlay already draws them.
+     * <br>
+     * API 18 미만에서 리스트뷰의 dispatchDraw 에서 호출한다.
+     * @param canvas the list view's canvas.
+     */
+    public void drawLeaveBehinds(Canvas canvas) {
+        if (mLeaveBehindDrawable == null) {
+            drawLeaveBehindsInternal(canvas);
+        }
+    }
+
+    private void drawLeaveBehindsInternal(Canvas canvas) {
+        if (mLeaveBehindDecoration == null) {
+            return;
+        }
+        int firstPosition = mListView.getFirstVisiblePosition();
+        int childCount = mListView.getChildCount();
+        for (int i = 0; i < childCount; i++) {
+            View child = mListView.getChildAt(i);
+            float translationX = child.getTranslationX();
+            if (translationX == 0) {
+                continue;
+            }
+            boolean revealedOnLeft = translationX > 0;
+            if (revealedOnLeft) {
+                mLeaveBehindBounds.set(child.getLeft(), child.getTop(),
+                        child.getLeft() + (int) translationX, child.getBottom());
+            } else {
+                mLeaveBehindBounds.set(child.getRight() + (int) translationX, child.getTop(),
+                        child.getRight(), child.getBottom());
+            }
+            // The row itself is drawn already; only paint the strip it uncovered.
+            int saveCount = canvas.save();
+            canvas.clipRect(mLeaveBehindBounds);
+            mLeaveBehindDecoration.onDraw(canvas, mLeaveBehindBounds, firstPosition + i,
+                    revealedOnLeft);
+            canvas.restoreToCount(saveCount);
+        }
+    }
+
+    private void invalidateLeaveBehinds() {
+        if (mLeaveBehindDrawable != null) {
+            mLeaveBehindDrawable.setBounds(0, 0, mListView.getWidth(), mListView.getHeight());
+        }
+        mListView.invalidate();
+    }
+
+    private class LeaveBehindDrawable extends Drawable {
+        @Override
+        public void draw(Canvas canvas) {
+            drawLeaveBehindsInternal(canvas);
+        }
+
+        @Override
+        public void setAlpha(int alpha) {
+        }
+
+        @Override
+        public void setColorFilter(ColorFilter colorFilter) {
+        }
+
+        @Override
+        public int getOpacity() {
+            return PixelFormat.TRANSLUCENT;
+        }
+    }
+
     /**
      * Enables or disables listening for touch<br>
      * 터치 이벤트 리스너를 동작시킬지 말지 결정한다.
@@ -318,10 +1093,189 @@ public class SwipeDismissListViewTouchListener implements View.OnTouchListener {
 
             @Override
             public void onScroll(AbsListView absListView, int i, int i1, int i2) {
+                reapplyOpenOffsets();
+                reapplyParkedRows();
             }
         };
     }
 
+    /**
+     * Returns an {@link android.widget.AbsListView.RecyclerListener} to be added to the {@link
+     * android.widget.ListView} using {@link android.widget.AbsListView#setRecyclerListener(android.widget.AbsListView.RecyclerListener)}.
+     * If a recycler listener is already assigned, the caller should still pass recycled views
+     * through to this listener. This ensures that a row which is moved to the scrap heap while it
+     * is being swiped or settled is restored once and no longer animated, so that it can safely
+     * be rebound to another position. Rows that are flying out or collapsing have transient state
+     * and never reach the scrap heap; when a data change drops them from the list instead, they
+     * are released after the next layout.
+     * <br><br>
+     * 애니메이션 중인 아이템 뷰가 재활용될 때, 해당 뷰의 애니메이션을 취소하고 원래 모습으로 되돌린다.
+     *
+     * @see SwipeDismissListViewTouchListener
+     */
+    public AbsListView.RecyclerListener makeRecyclerListener() {
+        return new AbsListView.RecyclerListener() {
+            @Override
+            public void onMovedToScrapHeap(View view) {
+                onViewRecycled(view);
+            }
+        };
+    }
+
+    private void onAnimationFrame(long frameTimeMillis) {
+        if (mAdaptiveQuality && mJankMonitor.onFrame(frameTimeMillis)
+                && mQualityTier < QUALITY_INSTANT_COMMIT) {
+            mQualityTier++;
+        }
+        if (mLeaveBehindDecoration != null && mAnimationClock.getRunningCount() > 0) {
+            // Rows move without the list redrawing itself; the revealed strips must follow.
+            invalidateLeaveBehinds();
+        }
+    }
+
+    private void onListDetached() {
+        // Rows that are mid-collapse keep their height; the pending batch restores them below.
+        mAnimationClock.cancelAll();
+        while (mGhostCount > 0) {
+            removeGhost(mGhosts[mGhostCount - 1]);
+        }
+
+        if (mDownView != null) {
+            resetViewPresentation(mDownView);
+        }
+        abandonSweep();
+        abandonReorder();
+        resetGesture();
+
+        // Unanswered rows are never committed, whatever the policy.
+        dropUnansweredConfirmations();
+        if (!mPendingDismisses.isEmpty()) {
+            mDismissAnimationRefCount = 0;
+            finishPendingDismisses(mDetachPolicy == DETACH_POLICY_FLUSH);
+        }
+    }
+
+    /**
+     * Releases the pending rows that the last layout left out of the list. Views with transient
+     * state skip the scrap heap, so the recycler listener never sees them.
+     */
+    private void releaseDetachedRows() {
+        for (int i = 0; i < mPendingDismisses.size(); i++) {
+            View view = mPendingDismisses.getView(i);
+            if (view != null && view.getParent() != mListView) {
+                // Releases slot i in place; the batch is only cleared once the count runs out.
+                onViewRecycled(view);
+            }
+        }
+    }
+
+    private void onViewRecycled(View view) {
+        int phase = mAnimationClock.cancel(view);
+        if (phase == RowAnimationClock.PHASE_SETTLE || phase == RowAnimationClock.PHASE_SHIFT) {
+            resetViewPresentation(view);
+        }
+
+        if (mSweepFirstIndex >= 0 || mReordering) {
+            // The rows under the sweep or drag are being rearranged; put them all back.
+            abandonSweep();
+            abandonReorder();
+            resetViewPresentation(view);
+        }
+
+        if (view == mDownView) {
+            // The row being swiped now belongs to another position; abandon the gesture.
+            resetViewPresentation(view);
+            resetGesture();
+        }
+
+        int pendingIndex = mPendingDismisses.indexOf(view);
+        if (pendingIndex < 0) {
+            if (mKeepOpen || !mAwaitingConfirmation.isEmpty()) {
+                // An open or parked row must not carry its offset to another position.
+                resetViewPresentation(view);
+            }
+            return;
+        }
+        // Detach the row from its pending dismissal, so that the batch end does not reset it a
+        // second time. The position itself is still dismissed when the batch completes.
+        // The row is measured again when it is reused, so no layout is requested here.
+        mPendingDismisses.release(pendingIndex);
+        resetViewPresentation(view);
+        setHasTransientState(view, false);
+        if (phase != RowAnimationClock.PHASE_NONE) {
+            // Cancelled animations report no end, so count this one as finished.
+            onDismissAnimationEnd();
+        }
+    }
+
+    private void onRowAnimationFinished(View view, int phase, int position) {
+        switch (phase) {
+            case RowAnimationClock.PHASE_FLY_OUT: {
+                // The batch's position, which ghost commits may have shifted since the start.
+                int pendingIndex = mPendingDismisses.indexOf(view);
+                if (pendingIndex >= 0) {
+                    performDismiss(view, mPendingDismisses.getPosition(pendingIndex));
+                } else {
+                    removeGhost(view);
+                }
+                break;
+            }
+            case RowAnimationClock.PHASE_SETTLE: {
+                if (position != ListView.INVALID_POSITION) {
+                    mCallbacks.onTryToDismiss(view, position);
+                }
+                break;
+            }
+            case RowAnimationClock.PHASE_COLLAPSE: {
+                onDismissAnimationEnd();
+                break;
+            }
+        }
+    }
+
+    private long[] resolveJournalIds(int[] positions) {
+        if (mDismissalJournal == null || mListView.getAdapter() == null
+                || !mListView.getAdapter().hasStableIds()) {
+            return null;
+        }
+        long[] ids = new long[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            ids[i] = mListView.getItemIdAtPosition(positions[i]);
+        }
+        return ids;
+    }
+
+    private void appendToJournal(long[] ids) {
+        if (ids == null || mDismissalJournal == null) {
+            return;
+        }
+        try {
+            for (long id : ids) {
+                if (id != ListView.INVALID_ROW_ID) {
+                    mDismissalJournal.append(id);
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to record dismissed ids", e);
+        } catch (IllegalStateException e) {
+            // Closed by its owner, e.g. in onDestroy() before a flush on detach.
+            Log.w(TAG, "Dismissal journal is closed; dismissed ids not recorded");
+        }
+    }
+
+    private static void resetViewPresentation(View view) {
+        view.setAlpha(1f);
+        view.setTranslationX(0);
+        view.setTranslationY(0);
+    }
+
+    private static void setHasTransientState(View view, boolean hasTransientState) {
+        // Keeps ListView from handing an animating row to another position (API 16+).
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            view.setHasTransientState(hasTransientState);
+        }
+    }
+
     @Override
     public boolean onTouch(View view, MotionEvent motionEvent) {
 
@@ -340,19 +1294,28 @@ public class SwipeDismissListViewTouchListener implements View.OnTouchListener {
                 // TODO: ensure this is a finger, and set a flag
 
                 // Find the child view that was touched (perform a hit test)
-                Rect rect = new Rect();
-                int childCount = mListView.getChildCount();
-                int[] listViewCoords = new int[2];
-                mListView.getLocationOnScreen(listViewCoords);
-                int x = (int) motionEvent.getRawX() - listViewCoords[0];
-                int y = (int) motionEvent.getRawY() - listViewCoords[1];
-                View child;
-                for (int i = 0; i < childCount; i++) {
-                    child = mListView.getChildAt(i);
-                    child.getHitRect(rect);
-                    if (rect.contains(x, y)) {
-                        mDownView = child;
-                        break;
+                mListView.getLocationOnScreen(mListViewCoords);
+                int x = (int) motionEvent.getRawX() - mListViewCoords[0];
+                int y = (int) motionEvent.getRawY() - mListViewCoords[1];
+                int childIndex = findChildIndexAt(x, y);
+                if (childIndex >= 0) {
+                    mDownView = mListView.getChildAt(childIndex);
+                }
+
+                if (mDownView != null) {
+                    int phase = mAnimationClock.getPhase(mDownView);
+                    if (mPendingDismisses.indexOf(mDownView) >= 0
+                            || isAwaitingConfirmation(mListView.getPositionForView(mDownView))) {
+                        // Being dismissed, or waiting for confirmation.
+                        mDownView = null;
+                        return false;
+                    } else if (phase == RowAnimationClock.PHASE_SETTLE) {
+                        // Catch the row mid-settle; the finger drives it from here.
+                        mAnimationClock.cancel(mDownView);
+                    } else if (phase != RowAnimationClock.PHASE_NONE) {
+                        // Already being dismissed.
+                        mDownView = null;
+                        return false;
                     }
                 }
 
@@ -360,9 +1323,22 @@ public class SwipeDismissListViewTouchListener implements View.OnTouchListener {
                     mDownX = motionEvent.getRawX();
                     mDownY = motionEvent.getRawY();
                     mDownPosition = mListView.getPositionForView(mDownView);
-                    if (mCallbacks.canDismiss(mDownPosition)) {
+                    mDownOffset = isKeepOpenActive() ? mDownView.getTranslationX() : 0;
+                    mDownCanSwipe = mCallbacks.canDismiss(mDownPosition);
+                    boolean canReorder = mReorderCallbacks != null
+                            && mDownPosition != ListView.INVALID_POSITION
+                            && mReorderCallbacks.canReorder(mDownPosition);
+                    if (mDownCanSwipe || canReorder) {
                         mVelocityTracker = VelocityTracker.obtain();
                         mVelocityTracker.addMovement(motionEvent);
+                        if (mTouchPredictor != null) {
+                            mTouchPredictor.clear();
+                            mTouchPredictor.addMovement(motionEvent);
+                        }
+                        if (canReorder) {
+                            mListView.postDelayed(mLongPressRunnable,
+                                    ViewConfiguration.getLongPressTimeout());
+                        }
                     } else {
                         mDownView = null;
                     }
@@ -375,21 +1351,16 @@ public class SwipeDismissListViewTouchListener implements View.OnTouchListener {
                     break;
                 }
 
+                if (mReordering) {
+                    settleReorder();
+                }
                 if (mDownView != null && mSwiping) {
-                    // cancel
-                    mDownView.animate()
-                            .translationX(0)
-                            .alpha(1)
-                            .setDuration(mAnimationTime)
-                            .setListener(null);
+                    // cancel, back to where the row was
+                    mAnimationClock.animate(mDownView, RowAnimationClock.PHASE_SETTLE,
+                            ListView.INVALID_POSITION, mAnimationTime, mDownOffset, 1);
                 }
-                mVelocityTracker.recycle();
-                mVelocityTracker = null;
-                mDownX = 0;
-                mDownY = 0;
-                mDownView = null;
-                mDownPosition = ListView.INVALID_POSITION;
-                mSwiping = false;
+                settleSweep();
+                resetGesture();
                 break;
             }
 
@@ -399,6 +1370,12 @@ public class SwipeDismissListViewTouchListener implements View.OnTouchListener {
                     break;
                 }
 
+                if (mReordering) {
+                    dropReorder();
+                    resetGesture();
+                    break;
+                }
+
                 float deltaX = motionEvent.getRawX() - mDownX;
                 mVelocityTracker.addMovement(motionEvent);
                 mVelocityTracker.computeCurrentVelocity(1000);
@@ -408,7 +1385,7 @@ public class SwipeDismissListViewTouchListener implements View.OnTouchListener {
                 boolean dismiss = false;
                 boolean dismissRight = false;
 
-                float viewXRatio = (mDownView.getX() / mViewWidth);
+                float viewXRatio = (mDownView.getLeft() + mSwipeTranslationX) / mViewWidth;
                 //Check dismissal in view of moved distance.
                 if (Math.abs(viewXRatio) > dismissDecisionDistanceRatio && mSwiping) {
                     dismiss = true;
@@ -426,55 +1403,30 @@ public class SwipeDismissListViewTouchListener implements View.OnTouchListener {
                 if (dismiss
                         && mDownPosition != ListView.INVALID_POSITION
                         && mDoDismiss) {
-                    // dismiss
-                    final View downView = mDownView; // mDownView gets null'd before animation ends
-                    final int downPosition = mDownPosition;
-                    ++mDismissAnimationRefCount;
-                    mDownView.animate()
-                            .translationX(dismissRight ? mViewWidth : -mViewWidth)
-                            .alpha(0)
-                            .setDuration(mAnimationTime)
-                            .setListener(new AnimatorListenerAdapter() {
-                                @Override
-                                public void onAnimationEnd(Animator animation) {
-                                    performDismiss(downView, downPosition);
-                                }
-                            });
+                    // dismiss, together with the rows swept along; they all join one batch
+                    reportDismissLikely();
+                    startDismissal(mDownView, mDownPosition, dismissRight);
+                    dismissSweep(dismissRight);
+                    commitGhosts();
                 } else {
+                    settleSweep();
 
-                    if(dismiss && !mDoDismiss) {
-                        // try to dismiss
-                        final View downView = mDownView; // mDownView gets null'd before animation ends
-                        final int downPosition = mDownPosition;
-
-                        mDownView.animate()
-                                .translationX(0)
-                                .alpha(1)
-                                .setDuration(mAnimationTime)
-                                .setListener(new AnimatorListenerAdapter() {
-                                    @Override
-                                    public void onAnimationEnd(Animator animation) {
-                                        mCallbacks.onTryToDismiss(downView, downPosition);
-                                    }
-                                });
+                    if (isKeepOpenActive() && mDownPosition != ListView.INVALID_POSITION) {
+                        settleOpenRow(dismiss, dismissRight);
+                    }
+                    else if(dismiss && !mDoDismiss) {
+                        // try to dismiss once the row is back in place
+                        mAnimationClock.animate(mDownView, RowAnimationClock.PHASE_SETTLE,
+                                mDownPosition, mAnimationTime, 0, 1);
                     }
                     else {
                         // cancel
-                        mDownView.animate()
-                                .translationX(0)
-                                .alpha(1)
-                                .setDuration(mAnimationTime)
-                                .setListener(null);
+                        mAnimationClock.animate(mDownView, RowAnimationClock.PHASE_SETTLE,
+                                ListView.INVALID_POSITION, mAnimationTime, 0, 1);
                     }
 
                 }
-                mVelocityTracker.recycle();
-                mVelocityTracker = null;
-                mDownX = 0;
-                mDownY = 0;
-                mDownView = null;
-                mDownPosition = ListView.INVALID_POSITION;
-                mSwiping = false;
+                resetGesture();
                 break;
             }
 
@@ -484,30 +1436,34 @@ public class SwipeDismissListViewTouchListener implements View.OnTouchListener {
                 }
 
                 mVelocityTracker.addMovement(motionEvent);
-                float deltaX = motionEvent.getRawX() - mDownX;
-                float deltaY = motionEvent.getRawY() - mDownY;
-
-                //limit direction
-                if(swipeMode == SWIPE_MODE_LEFT) {
-                    deltaX = Math.min(0, deltaX);
-                }
-                else {
-                    deltaX = Math.max(0, deltaX);
+                if (mReordering) {
+                    dragReorder(motionEvent.getRawY() - mDownY);
+                    return true;
                 }
-                //limit distance
-                float swipeDistance = mViewWidth * swipeDistanceRatio;
-                if(deltaX > 0) {
-                    deltaX = Math.min(swipeDistance, deltaX);
+                if (mTouchPredictor != null) {
+                    mTouchPredictor.addMovement(motionEvent);
                 }
-                else {
-                    deltaX = Math.max(-swipeDistance, deltaX);
+                // An open row is dragged from its open offset.
+                float deltaX = limitSwipeDelta(motionEvent.getRawX() - mDownX + mDownOffset);
+                float deltaY = motionEvent.getRawY() - mDownY;
+
+                if (Math.abs(deltaY) > mSlop || Math.abs(deltaX - mDownOffset) > mSlop) {
+                    // Moved too far for a long press.
+                    mListView.removeCallbacks(mLongPressRunnable);
                 }
 
                 //check starting swipe
-                if (Math.abs(deltaX) > mSlop && Math.abs(deltaY) < Math.abs(deltaX) / 2) {
+                if (mDownCanSwipe && Math.abs(deltaX - mDownOffset) > mSlop && Math.abs(deltaY) < Math.abs(deltaX) / 2) {
                     mSwiping = true;
-                    mSwipingSlop = (deltaX > 0 ? mSlop : -mSlop);
+                    mSwipingSlop = (deltaX - mDownOffset > 0 ? mSlop : -mSlop);
                     mListView.requestDisallowInterceptTouchEvent(true);
+                    if (mAdaptiveQuality) {
+                        // Observe frames while the row follows the finger.
+                        mAnimationClock.setHeld(true);
+                    }
+                    if (mSwipeMany && mDoDismiss && mSweepFirstIndex < 0) {
+                        startSweep();
+                    }
 
                     // Cancel ListView's touch (un-highlighting the item)
                     MotionEvent cancelEvent = MotionEvent.obtain(motionEvent);
@@ -519,9 +1475,32 @@ public class SwipeDismissListViewTouchListener implements View.OnTouchListener {
                 }
 
                 if (mSwiping) {
-                    mDownView.setTranslationX(deltaX - mSwipingSlop);
-                    mDownView.setAlpha(Math.max(0f, Math.min(1f,
-                            1f - Math.abs(deltaX) / mViewWidth)));
+                    mSwipeTranslationX = deltaX - mSwipingSlop;
+                    if (!mDismissLikelyReported && mDoDismiss
+                            && mCallbacks instanceof DismissIntentCallbacks
+                            && isDismissLikely()) {
+                        reportDismissLikely();
+                    }
+                    float drawDeltaX = deltaX;
+                    if (mTouchPredictor != null) {
+                        drawDeltaX = limitSwipeDelta(motionEvent.getRawX() - mDownX + mDownOffset
+                                + mTouchPredictor.predictOffset(SystemClock.uptimeMillis()));
+                    }
+                    float alpha = Math.max(0f, Math.min(1f,
+                            1f - Math.abs(drawDeltaX) / mViewWidth));
+                    // Rows that stay open stay opaque, so what they reveal reads as an action.
+                    boolean fade = mQualityTier < QUALITY_NO_ALPHA && !isKeepOpenActive();
+                    mDownView.setTranslationX(drawDeltaX - mSwipingSlop);
+                    if (fade) {
+                        mDownView.setAlpha(alpha);
+                    }
+                    if (mSweepFirstIndex >= 0) {
+                        extendSweep(motionEvent.getRawY());
+                        applySweep(drawDeltaX - mSwipingSlop, alpha, fade);
+                    }
+                    if (mLeaveBehindDecoration != null) {
+                        invalidateLeaveBehinds();
+                    }
                     return true;
                 }
                 break;
@@ -530,22 +1509,494 @@ public class SwipeDismissListViewTouchListener implements View.OnTouchListener {
         return false;
     }
 
-    class PendingDismissData implements Comparable<PendingDismissData> {
-        public int position;
-        public View view;
+    /**
+     * Returns the index of the child under the given point, in list view coordinates, or -1.
+     */
+    private int findChildIndexAt(int x, int y) {
+        int childCount = mListView.getChildCount();
+        for (int i = 0; i < childCount; i++) {
+            mListView.getChildAt(i).getHitRect(mHitRect);
+            if (mHitRect.contains(x, y)) {
+                return i;
+            }
+        }
+        return -1;
+    }
 
-        public PendingDismissData(int position, View view) {
-            this.position = position;
-            this.view = view;
+    private void startSweep() {
+        int index = mListView.indexOfChild(mDownView);
+        int childCount = mListView.getChildCount();
+        if (index < 0) {
+            return;
+        }
+        if (mSwept.length < childCount) {
+            mSwept = new boolean[childCount];
         }
+        mSwept[index] = false; // mDownView is driven on its own
+        mSweepFirstIndex = index;
+        mSweepLastIndex = index;
+        mSweepFirstPosition = mListView.getFirstVisiblePosition();
+    }
 
-        @Override
-        public int compareTo(PendingDismissData other) {
-            // Sort by descending position
-            return other.position - position;
+    private void extendSweep(float rawY) {
+        if (mSweepFirstIndex < 0 || mListView.getFirstVisiblePosition() != mSweepFirstPosition) {
+            // The rows moved under the finger; keep what was swept but do not guess further.
+            return;
         }
+        // Hit-test along the down row's vertical center line, where rows at rest always are.
+        int x = (mDownView.getLeft() + mDownView.getRight()) / 2;
+        int index = findChildIndexAt(x, (int) rawY - mListViewCoords[1]);
+        if (index < 0) {
+            return;
+        }
+        // Rows are laid out top to bottom, so widening the range also takes every row the finger
+        // skipped over between two move events.
+        while (index < mSweepFirstIndex) {
+            markSwept(--mSweepFirstIndex);
+        }
+        while (index > mSweepLastIndex) {
+            markSwept(++mSweepLastIndex);
+        }
+    }
+
+    private void markSwept(int index) {
+        if (index >= mSwept.length) {
+            mSwept = Arrays.copyOf(mSwept, Math.max(index + 1, mSwept.length * 2));
+        }
+        View child = mListView.getChildAt(index);
+        mSwept[index] = child != null && isAtRest(child, mSweepFirstPosition + index)
+                && mCallbacks.canDismiss(mSweepFirstPosition + index);
+    }
+
+    private void applySweep(float translationX, float alpha, boolean fade) {
+        int childCount = mListView.getChildCount();
+        for (int i = mSweepFirstIndex; i >= 0 && i <= mSweepLastIndex && i < childCount; i++) {
+            if (mSwept[i]) {
+                View child = mListView.getChildAt(i);
+                child.setTranslationX(translationX);
+                if (fade) {
+                    child.setAlpha(alpha);
+                }
+            }
+        }
+    }
+
+    /**
+     * Flies out every swept row along with mDownView and forgets the sweep.
+     */
+    private void dismissSweep(boolean dismissRight) {
+        int childCount = mListView.getChildCount();
+        for (int i = mSweepFirstIndex; i >= 0 && i <= mSweepLastIndex && i < childCount; i++) {
+            if (mSwept[i]) {
+                startDismissal(mListView.getChildAt(i), mSweepFirstPosition + i, dismissRight);
+            }
+        }
+        mSweepFirstIndex = -1;
+        mSweepLastIndex = -1;
     }
 
+    /**
+     * Animates every swept row back to rest and forgets the sweep.
+     */
+    private void settleSweep() {
+        int childCount = mListView.getChildCount();
+        for (int i = mSweepFirstIndex; i >= 0 && i <= mSweepLastIndex && i < childCount; i++) {
+            if (mSwept[i]) {
+                mAnimationClock.animate(mListView.getChildAt(i), RowAnimationClock.PHASE_SETTLE,
+                        ListView.INVALID_POSITION, mAnimationTime, 0, 1);
+            }
+        }
+        mSweepFirstIndex = -1;
+        mSweepLastIndex = -1;
+    }
+
+    /**
+     * Puts every swept row back at rest at once and forgets the sweep.
+     */
+    private void abandonSweep() {
+        int childCount = mListView.getChildCount();
+        for (int i = mSweepFirstIndex; i >= 0 && i <= mSweepLastIndex && i < childCount; i++) {
+            if (mSwept[i]) {
+                resetViewPresentation(mListView.getChildAt(i));
+            }
+        }
+        mSweepFirstIndex = -1;
+        mSweepLastIndex = -1;
+    }
+
+    private void startFlyOut(View view, int position, boolean dismissRight) {
+        // The view reference is dropped by the gesture before the animation ends
+        int slot = mPendingDismisses.add(position, view);
+        ++mDismissAnimationRefCount;
+        setHasTransientState(view, true);
+        int distance = Math.max(mPendingDismisses.getWidth(slot), mViewWidth);
+        mAnimationClock.animate(view, RowAnimationClock.PHASE_FLY_OUT,
+                position, mAnimationTime,
+                dismissRight ? distance : -distance,
+                mQualityTier < QUALITY_NO_ALPHA ? 0 : 1);
+    }
+
+    private void resetGesture() {
+        mListView.removeCallbacks(mLongPressRunnable);
+        mDismissLikelyReported = false;
+        if (mVelocityTracker != null) {
+            mVelocityTracker.recycle();
+            mVelocityTracker = null;
+        }
+        mDownX = 0;
+        mDownY = 0;
+        mDownView = null;
+        mDownPosition = ListView.INVALID_POSITION;
+        mDownCanSwipe = false;
+        mSwiping = false;
+        mSwipeTranslationX = 0;
+        mDownOffset = 0;
+        mAnimationClock.setHeld(false);
+    }
+
+    private boolean isDismissLikely() {
+        if (Math.abs((mDownView.getLeft() + mSwipeTranslationX) / mViewWidth)
+                > dismissDecisionDistanceRatio) {
+            return true;
+        }
+        // A fling in the direction of the drag, as ACTION_UP would judge it
+        mVelocityTracker.computeCurrentVelocity(1000);
+        float velocityX = mVelocityTracker.getXVelocity();
+        float absVelocityX = Math.abs(velocityX);
+        return mMinFlingVelocity <= absVelocityX && absVelocityX <= mMaxFlingVelocity
+                && Math.abs(mVelocityTracker.getYVelocity()) < absVelocityX
+                && (velocityX < 0) == (mSwipeTranslationX < 0);
+    }
+
+    private void reportDismissLikely() {
+        if (mDismissLikelyReported || !mDoDismiss || mDownPosition == ListView.INVALID_POSITION
+                || !(mCallbacks instanceof DismissIntentCallbacks)) {
+            return;
+        }
+        mDismissLikelyReported = true;
+        ((DismissIntentCallbacks) mCallbacks).onDismissLikely(mDownPosition);
+    }
+
+    private void startReorder() {
+        if (mDownView == null || mSwiping || mPaused || mReorderCallbacks == null) {
+            return;
+        }
+        int index = mListView.indexOfChild(mDownView);
+        if (index < 0) {
+            return;
+        }
+        mReordering = true;
+        mReorderFromIndex = index;
+        mReorderTargetIndex = index;
+        mReorderFirstPosition = mListView.getFirstVisiblePosition();
+        mReorderShift = mDownView.getHeight() + mListView.getDividerHeight();
+        mListView.requestDisallowInterceptTouchEvent(true);
+        mDownView.performHapticFeedback(HapticFeedbackConstants.LONG_PRESS);
+        if (mAdaptiveQuality) {
+            mAnimationClock.setHeld(true);
+        }
+
+        // Cancel ListView's touch (un-highlighting the item and dropping its own long press)
+        long time = SystemClock.uptimeMillis();
+        MotionEvent cancelEvent = MotionEvent.obtain(time, time,
+                MotionEvent.ACTION_CANCEL, 0, 0, 0);
+        mListView.onTouchEvent(cancelEvent);
+        cancelEvent.recycle();
+    }
+
+    private void dragReorder(float deltaY) {
+        mDownView.setTranslationY(deltaY);
+        if (mListView.getFirstVisiblePosition() != mReorderFirstPosition) {
+            return;
+        }
+
+        // Compare layout centers, which the shifting rows do not move.
+        int center = (mDownView.getTop() + mDownView.getBottom()) / 2 + (int) deltaY;
+        // Header and footer views are not items; rows only move between them.
+        int minIndex = Math.max(0, mListView.getHeaderViewsCount() - mReorderFirstPosition);
+        int maxIndex = Math.min(mListView.getChildCount() - 1, mListView.getCount()
+                - mListView.getFooterViewsCount() - 1 - mReorderFirstPosition);
+        int target = mReorderFromIndex;
+        while (target > minIndex && center < getLayoutCenter(target - 1)) {
+            target--;
+        }
+        while (target < maxIndex && center > getLayoutCenter(target + 1)) {
+            target++;
+        }
+        if (target == mReorderTargetIndex || !canDropAt(target)) {
+            return;
+        }
+
+        // Only the rows between the old and the new slot change sides.
+        int first = Math.min(target, mReorderTargetIndex);
+        int last = Math.max(target, mReorderTargetIndex);
+        for (int i = first; i <= last; i++) {
+            float shift = getReorderShift(i, target);
+            if (i != mReorderFromIndex && shift != getReorderShift(i, mReorderTargetIndex)) {
+                mAnimationClock.animate(mListView.getChildAt(i), RowAnimationClock.PHASE_SHIFT,
+                        ListView.INVALID_POSITION, mAnimationTime, shift, 1);
+            }
+        }
+        mReorderTargetIndex = target;
+    }
+
+    private boolean canDropAt(int index) {
+        return index == mReorderFromIndex || (mReorderCallbacks != null
+                && mReorderCallbacks.canReorder(mReorderFirstPosition + index));
+    }
+
+    private int getLayoutCenter(int index) {
+        View child = mListView.getChildAt(index);
+        return (child.getTop() + child.getBottom()) / 2;
+    }
+
+    private float getReorderShift(int index, int target) {
+        if (mReorderFromIndex < index && index <= target) {
+            return -mReorderShift;
+        } else if (target <= index && index < mReorderFromIndex) {
+            return mReorderShift;
+        }
+        return 0;
+    }
+
+    private void dropReorder() {
+        int from = mReorderFromIndex;
+        int to = mReorderTargetIndex;
+        if (from == to || !canDropAt(to)) {
+            settleReorder();
+            return;
+        }
+        // The adapter lays the rows out in their new order; drop the shifts at once.
+        abandonReorder();
+        int fromPosition = mReorderFirstPosition + from;
+        int toPosition = mReorderFirstPosition + to;
+        for (int i = 0; i < mAwaitingConfirmation.size(); i++) {
+            // Parked rows between the two slots move by one along with their items.
+            DismissConfirmation confirmation = mAwaitingConfirmation.get(i);
+            int position = confirmation.mParkedPosition;
+            if (fromPosition < position && position <= toPosition) {
+                confirmation.mParkedPosition--;
+            } else if (toPosition <= position && position < fromPosition) {
+                confirmation.mParkedPosition++;
+            }
+        }
+        mReorderCallbacks.onReorder(mListView, fromPosition, toPosition);
+    }
+
+    /**
+     * Animates the dragged row and the rows that made room back to their places.
+     */
+    private void settleReorder() {
+        int first = Math.min(mReorderFromIndex, mReorderTargetIndex);
+        int last = Math.max(mReorderFromIndex, mReorderTargetIndex);
+        int childCount = mListView.getChildCount();
+        for (int i = first; i <= last && i < childCount; i++) {
+            mAnimationClock.animate(mListView.getChildAt(i), RowAnimationClock.PHASE_SHIFT,
+                    ListView.INVALID_POSITION, mAnimationTime, 0, 1);
+        }
+        mReordering = false;
+    }
+
+    /**
+     * Puts the dragged row and the rows that made room back at once.
+     */
+    private void abandonReorder() {
+        if (!mReordering) {
+            return;
+        }
+        int first = Math.min(mReorderFromIndex, mReorderTargetIndex);
+        int last = Math.max(mReorderFromIndex, mReorderTargetIndex);
+        int childCount = mListView.getChildCount();
+        for (int i = first; i <= last && i < childCount; i++) {
+            View child = mListView.getChildAt(i);
+            mAnimationClock.cancel(child);
+            child.setTranslationY(0);
+        }
+        mReordering = false;
+    }
+
+    /**
+     * Starts dismissing a swiped row, or parks it until it is confirmed when the callbacks are
+     * {@link AsyncDismissCallbacks}.
+     */
+    private void startDismissal(View view, int position, boolean dismissRight) {
+        if (!(mCallbacks instanceof AsyncDismissCallbacks)) {
+            if (!mGhostDismiss || !startGhost(view, position, dismissRight)) {
+                startFlyOut(view, position, dismissRight);
+            }
+            return;
+        }
+        DismissConfirmation confirmation = new DismissConfirmation(position);
+        float parkedX = mViewWidth * dismissDecisionDistanceRatio;
+        confirmation.mParkedPosition = position;
+        confirmation.mParkedX = dismissRight ? parkedX : -parkedX;
+        // Parked rows are kept by position and stay out of the batch, so they never hold back
+        // other dismissals. The view is not pinned; reapplyParkedRows() follows the item.
+        mAwaitingConfirmation.add(confirmation);
+        mAnimationClock.animate(view, RowAnimationClock.PHASE_SETTLE,
+                ListView.INVALID_POSITION, mAnimationTime, confirmation.mParkedX,
+                getParkedAlpha());
+        ((AsyncDismissCallbacks) mCallbacks).onConfirmDismiss(mListView, position, confirmation);
+    }
+
+    /**
+     * Flies a snapshot of {@code view} out in the overlay and queues its position for
+     * {@link #commitGhosts()}. The row itself is put back at rest.
+     *
+     * @return false if the row could not be snapshotted, the overlay is not available, or
+     *         {@link #MAX_GHOSTS} are already flying.
+     */
+    private boolean startGhost(View view, int position, boolean dismissRight) {
+        int width = view.getWidth();
+        int height = view.getHeight();
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR2
+                || width <= 0 || height <= 0 || mGhostCount >= MAX_GHOSTS) {
+            return false;
+        }
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        view.draw(new Canvas(bitmap));
+        View ghost = new View(mListView.getContext());
+        ghost.setBackground(new BitmapDrawable(mListView.getResources(), bitmap));
+        ghost.layout(view.getLeft(), view.getTop(), view.getRight(), view.getBottom());
+        ghost.setTranslationX(view.getTranslationX());
+        ghost.setAlpha(view.getAlpha());
+        mListView.getOverlay().add(ghost);
+
+        if (mGhostCount == mGhosts.length) {
+            mGhosts = Arrays.copyOf(mGhosts, mGhostCount * 2);
+            mGhostBitmaps = Arrays.copyOf(mGhostBitmaps, mGhostCount * 2);
+        }
+        mGhosts[mGhostCount] = ghost;
+        mGhostBitmaps[mGhostCount] = bitmap;
+        mGhostCount++;
+        if (mGhostCommitCount == mGhostCommitPositions.length) {
+            mGhostCommitPositions = Arrays.copyOf(mGhostCommitPositions, mGhostCommitCount * 2);
+        }
+        mGhostCommitPositions[mGhostCommitCount++] = position;
+
+        resetViewPresentation(view);
+        int distance = Math.max(width, mViewWidth);
+        mAnimationClock.animate(ghost, RowAnimationClock.PHASE_FLY_OUT,
+                ListView.INVALID_POSITION, mAnimationTime,
+                dismissRight ? distance : -distance,
+                mQualityTier < QUALITY_NO_ALPHA ? 0 : 1);
+        return true;
+    }
+
+    /**
+     * Removes the positions of the rows that just became ghosts from the adapter, in one call.
+     */
+    private void commitGhosts() {
+        if (mGhostCommitCount == 0) {
+            return;
+        }
+        int[] dismissPositions = Arrays.copyOf(mGhostCommitPositions, mGhostCommitCount);
+        mGhostCommitCount = 0;
+        PendingDismissBatch.sortDescending(dismissPositions);
+        // Rows still collapsing in a batch keep pointing at the same items.
+        mPendingDismisses.shiftPositions(dismissPositions);
+        commitDismissals(dismissPositions);
+    }
+
+    /**
+     * Takes {@code view} out of the overlay if it is a ghost.
+     *
+     * @return false if it is not a ghost.
+     */
+    private boolean removeGhost(View view) {
+        // Ghosts only exist on API 18 and later.
+        for (int i = 0; i < mGhostCount; i++) {
+            if (mGhosts[i] == view) {
+                mListView.getOverlay().remove(view);
+                mGhostBitmaps[i].recycle();
+                int last = --mGhostCount;
+                mGhosts[i] = mGhosts[last];
+                mGhostBitmaps[i] = mGhostBitmaps[last];
+                mGhosts[last] = null;
+                mGhostBitmaps[last] = null;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void onConfirmationAnswered(DismissConfirmation confirmation) {
+        if (confirmation.mApplied) {
+            // Dropped when the list was detached.
+            return;
+        }
+        confirmation.mApplied = true;
+        if (!mAwaitingConfirmation.remove(confirmation)) {
+            return;
+        }
+        int position = confirmation.mParkedPosition;
+        View view = getChildAtPosition(position);
+
+        if (confirmation.mConfirmed) {
+            if (view == null) {
+                // Scrolled out of view; there is nothing left to animate, so commit it alone.
+                int[] dismissPositions = new int[] { position };
+                mPendingDismisses.shiftPositions(dismissPositions);
+                commitDismissals(dismissPositions);
+                return;
+            }
+            // The row joins the current batch only now.
+            startFlyOut(view, position, confirmation.mParkedX >= 0);
+        } else if (view != null) {
+            mAnimationClock.animate(view, RowAnimationClock.PHASE_SETTLE,
+                    ListView.INVALID_POSITION, mAnimationTime, 0, 1);
+        }
+    }
+
+    /**
+     * Forgets every row still waiting for confirmation and restores it.
+     */
+    private void dropUnansweredConfirmations() {
+        for (int i = 0; i < mAwaitingConfirmation.size(); i++) {
+            DismissConfirmation confirmation = mAwaitingConfirmation.get(i);
+            confirmation.mApplied = true;
+            View view = getChildAtPosition(confirmation.mParkedPosition);
+            if (view != null) {
+                resetViewPresentation(view);
+            }
+        }
+        mAwaitingConfirmation.clear();
+    }
+
+    private boolean isAwaitingConfirmation(int position) {
+        if (position == ListView.INVALID_POSITION) {
+            return false;
+        }
+        for (int i = 0; i < mAwaitingConfirmation.size(); i++) {
+            if (mAwaitingConfirmation.get(i).mParkedPosition == position) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private float getParkedAlpha() {
+        return mQualityTier < QUALITY_NO_ALPHA ? 0.5f : 1;
+    }
+
+    private float limitSwipeDelta(float deltaX) {
+        //limit direction
+        if(swipeMode == SWIPE_MODE_LEFT) {
+            deltaX = Math.min(0, deltaX);
+        }
+        else {
+            deltaX = Math.max(0, deltaX);
+        }
+        //limit distance
+        float swipeDistance = mViewWidth * swipeDistanceRatio;
+        if(deltaX > 0) {
+            deltaX = Math.min(swipeDistance, deltaX);
+        }
+        else {
+            deltaX = Math.max(-swipeDistance, deltaX);
+        }
+        return deltaX;
+    }
 
     /**
      * Dismiss view with animation.
@@ -559,69 +2010,110 @@ public class SwipeDismissListViewTouchListener implements View.OnTouchListener {
      * @param dismissPosition position to dismiss
      */
     public void dismiss(View dismissView, int dismissPosition) {
+        mPendingDismisses.add(dismissPosition, dismissView);
         ++mDismissAnimationRefCount;
+        setHasTransientState(dismissView, true);
         performDismiss(dismissView, dismissPosition);
     }
 
-    private void performDismiss(final View dismissView, final int dismissPosition) {
+    private void performDismiss(View dismissView, int dismissPosition) {
         // Animate the dismissed list item to zero-height and fire the dismiss callback when
-        // all dismissed list item animations have completed. This triggers layout on each animation
-        // frame; in the future we may want to do something smarter and more performant.
+        // all dismissed list item animations have completed. All collapsing rows share one
+        // frame callback and one layout pass per frame, see RowAnimationClock.
 
-        final ViewGroup.LayoutParams lp = dismissView.getLayoutParams();
-        final int originalHeight = dismissView.getHeight();
-
-        ValueAnimator animator = ValueAnimator.ofInt(originalHeight, 1).setDuration(mAnimationTime);
-
-        animator.addListener(new AnimatorListenerAdapter() {
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                --mDismissAnimationRefCount;
-                if (mDismissAnimationRefCount == 0) {
-                    // No active animations, process all pending dismisses.
-                    // Sort by descending position
-                    Collections.sort(mPendingDismisses);
-
-                    int[] dismissPositions = new int[mPendingDismisses.size()];
-                    for (int i = mPendingDismisses.size() - 1; i >= 0; i--) {
-                        dismissPositions[i] = mPendingDismisses.get(i).position;
-                    }
-                    mCallbacks.onDismiss(mListView, dismissPositions);
-                    
-                    // Reset mDownPosition to avoid MotionEvent.ACTION_UP trying to start a dismiss 
-                    // animation with a stale position
-                    mDownPosition = ListView.INVALID_POSITION;
-
-                    ViewGroup.LayoutParams lp;
-                    for (PendingDismissData pendingDismiss : mPendingDismisses) {
-                        // Reset view presentation
-                        pendingDismiss.view.setAlpha(1f);
-                        pendingDismiss.view.setTranslationX(0);
-                        lp = pendingDismiss.view.getLayoutParams();
-                        lp.height = originalHeight;
-                        pendingDismiss.view.setLayoutParams(lp);
-                    }
+        if (mQualityTier >= QUALITY_INSTANT_COMMIT) {
+            onDismissAnimationEnd();
+            return;
+        }
+        long duration = mQualityTier >= QUALITY_SHORT_COLLAPSE
+                ? mAnimationTime / 2
+                : mAnimationTime;
+        mAnimationClock.animate(dismissView, RowAnimationClock.PHASE_COLLAPSE,
+                dismissPosition, duration, 0, 0);
+    }
 
-                    // Send a cancel event
-                    long time = SystemClock.uptimeMillis();
-                    MotionEvent cancelEvent = MotionEvent.obtain(time, time,
-                            MotionEvent.ACTION_CANCEL, 0, 0, 0);
-                    mListView.dispatchTouchEvent(cancelEvent);
+    private void onDismissAnimationEnd() {
+        --mDismissAnimationRefCount;
+        if (mDismissAnimationRefCount == 0) {
+            // No active animations, process all pending dismisses.
+            finishPendingDismisses(true);
+
+            // Send a cancel event
+            long time = SystemClock.uptimeMillis();
+            MotionEvent cancelEvent = MotionEvent.obtain(time, time,
+                    MotionEvent.ACTION_CANCEL, 0, 0, 0);
+            mListView.dispatchTouchEvent(cancelEvent);
+            cancelEvent.recycle();
+        }
+    }
 
-                    mPendingDismisses.clear();
+    private void commitDismissals(int[] reverseSortedPositions) {
+        // Positions are stale once onDismiss has run, so resolve the IDs first.
+        long[] dismissIds = resolveJournalIds(reverseSortedPositions);
+        boolean keyedByPosition = mListView.getAdapter() == null
+                || !mListView.getAdapter().hasStableIds();
+        mCallbacks.onDismiss(mListView, reverseSortedPositions);
+        // Rows still waiting for confirmation keep pointing at the same items.
+        for (int i = 0; i < mAwaitingConfirmation.size(); i++) {
+            DismissConfirmation confirmation = mAwaitingConfirmation.get(i);
+            int shift = 0;
+            for (int removed : reverseSortedPositions) {
+                if (removed < confirmation.mParkedPosition) {
+                    shift++;
                 }
             }
-        });
+            confirmation.mParkedPosition -= shift;
+        }
+        appendToJournal(dismissIds);
+        hideInTombstoneCursor(reverseSortedPositions);
+        if (keyedByPosition) {
+            // The positions of open rows have shifted; the next layout closes them.
+            mOpenRows.clear();
+        }
+    }
 
-        animator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator valueAnimator) {
-                lp.height = (Integer) valueAnimator.getAnimatedValue();
-                dismissView.setLayoutParams(lp);
-            }
-        });
+    private void hideInTombstoneCursor(int[] reverseSortedPositions) {
+        if (mTombstoneCursor == null) {
+            return;
+        }
+        // List positions count the header views; cursor positions do not.
+        int headerCount = mListView.getHeaderViewsCount();
+        int[] cursorPositions = new int[reverseSortedPositions.length];
+        for (int i = 0; i < reverseSortedPositions.length; i++) {
+            cursorPositions[i] = reverseSortedPositions[i] - headerCount;
+        }
+        mTombstoneCursor.hide(cursorPositions);
 
-        mPendingDismisses.add(new PendingDismissData(dismissPosition, dismissView));
-        animator.start();
+        ListAdapter adapter = mListView.getAdapter();
+        if (adapter instanceof WrapperListAdapter) {
+            adapter = ((WrapperListAdapter) adapter).getWrappedAdapter();
+        }
+        if (adapter instanceof BaseAdapter) {
+            ((BaseAdapter) adapter).notifyDataSetChanged();
+        }
+    }
+
+    private void finishPendingDismisses(boolean commit) {
+        if (commit) {
+            commitDismissals(mPendingDismisses.getReverseSortedPositions());
+        }
+
+        // Reset mDownPosition to avoid MotionEvent.ACTION_UP trying to start a dismiss
+        // animation with a stale position
+        mDownPosition = ListView.INVALID_POSITION;
+
+        // Each row goes back to its own layout height, once; one layout pass measures them all.
+        for (int i = 0; i < mPendingDismisses.size(); i++) {
+            View view = mPendingDismisses.release(i);
+            if (view == null) {
+                // Already restored when it was recycled.
+                continue;
+            }
+            // Reset view presentation
+            resetViewPresentation(view);
+            setHasTransientState(view, false);
+        }
+        mPendingDismisses.clear();
+        mListView.requestLayout();
     }
 }
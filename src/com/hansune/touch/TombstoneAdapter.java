@@ -0,0 +1,237 @@
+/*
+ * Copyright 2013 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hansune.touch;
+
+import android.database.DataSetObserver;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.ListAdapter;
+
+import java.util.concurrent.Executor;
+
+/**
+ * A {@link android.widget.ListAdapter} wrapper that hides dismissed rows instead of removing them
+ * from the wrapped adapter's storage.
+ *
+ * <p>{@link #dismiss(int[])} marks rows as tombstones in a {@link TombstoneIndex}, so a batch of
+ * k dismissals costs O(k log n) however large the list is. Rows appended to the wrapped adapter
+ * are picked up when it notifies a change. The dismissed rows can later be dropped from the
+ * underlying storage off the UI thread with {@link #compact(java.util.concurrent.Executor, Compactor)}.</p>
+ *
+ * <p>Example usage:</p>
+ *
+ * <pre>
+ * final TombstoneAdapter tombstoneAdapter = new TombstoneAdapter(logAdapter);
+ * listView.setAdapter(tombstoneAdapter);
+ * SwipeDismissListViewTouchListener touchListener =
+ *         new SwipeDismissListViewTouchListener(
+ *                 listView,
+ *                 new SwipeDismissListViewTouchListener.DismissCallbacks() {
+ *                     public void onDismiss(ListView listView, int[] reverseSortedPositions) {
+ *                         tombstoneAdapter.dismiss(reverseSortedPositions);
+ *                     }
+ *                     ...
+ *                 });
+ * </pre>
+ *
+ * <br>
+ * 사라진 아이템을 실제 데이터에서 지우지 않고 숨기는 어댑터. 실제 데이터 정리는 백그라운드에서 한다.
+ *
+ * @see TombstoneIndex
+ * @see SwipeDismissListViewTouchListener
+ */
+public class TombstoneAdapter extends BaseAdapter {
+
+    /**
+     * Removes dismissed rows from the storage behind the wrapped adapter.
+     */
+    public interface Compactor {
+        /**
+         * Called on a background thread. Build a compacted copy of the first
+         * {@code underlyingCount} items without the items at {@code sortedDismissedIndices}.
+         * The wrapped adapter keeps reading the current storage meanwhile, so it must not be
+         * modified here.
+         *
+         * @param sortedDismissedIndices Underlying indices to drop, in ascending order.
+         * @param underlyingCount        Number of underlying items when compaction started.
+         */
+        void compact(int[] sortedDismissedIndices, int underlyingCount);
+
+        /**
+         * Called on the UI thread after {@link #compact(int[], int)}. Swap the compacted copy
+         * into the wrapped adapter, followed by any items appended since compaction started.
+         */
+        void publish();
+    }
+
+    private final ListAdapter mAdapter;
+    private final TombstoneIndex mIndex;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private boolean mCompacting;
+    private boolean mPublishing;
+
+    /**
+     * Constructs a wrapper showing every row of {@code adapter}.
+     */
+    public TombstoneAdapter(ListAdapter adapter) {
+        mAdapter = adapter;
+        mIndex = new TombstoneIndex(adapter.getCount());
+        mAdapter.registerDataSetObserver(new DataSetObserver() {
+            @Override
+            public void onChanged() {
+                if (mPublishing) {
+                    return;
+                }
+                syncUnderlyingCount();
+                notifyDataSetChanged();
+            }
+
+            @Override
+            public void onInvalidated() {
+                notifyDataSetInvalidated();
+            }
+        });
+    }
+
+    /**
+     * Returns the wrapped adapter.
+     */
+    public ListAdapter getWrappedAdapter() {
+        return mAdapter;
+    }
+
+    /**
+     * Returns the underlying index of the row shown at {@code position}.
+     */
+    public int getUnderlyingPosition(int position) {
+        return mIndex.toUnderlying(position);
+    }
+
+    /**
+     * Hides the rows at the given positions and notifies the list view once.
+     * <br>
+     * 주어진 위치의 아이템들을 숨긴다.
+     *
+     * @param reverseSortedPositions Positions to hide, sorted in descending order, as passed to
+     *                               {@link SwipeDismissListViewTouchListener.DismissCallbacks#onDismiss(android.widget.ListView, int[])}.
+     */
+    public void dismiss(int[] reverseSortedPositions) {
+        // Descending order keeps the remaining positions valid while marking.
+        for (int position : reverseSortedPositions) {
+            mIndex.dismiss(position);
+        }
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Drops the dismissed rows from the underlying storage. {@link Compactor#compact(int[], int)}
+     * runs on {@code executor} and {@link Compactor#publish()} on the UI thread, after which the
+     * index is rebased. Rows dismissed in between stay hidden. Does nothing while a compaction is
+     * already running or when no row is dismissed.
+     *
+     * @param executor  Runs the compaction, e.g. {@link android.os.AsyncTask#THREAD_POOL_EXECUTOR}.
+     * @param compactor Compacts and publishes the storage.
+     */
+    public void compact(Executor executor, final Compactor compactor) {
+        if (mCompacting || mIndex.getVisibleCount() == mIndex.getUnderlyingCount()) {
+            return;
+        }
+        final int[] dismissedIndices = mIndex.getDismissedIndices();
+        final int underlyingCount = mIndex.getUnderlyingCount();
+        mCompacting = true;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                compactor.compact(dismissedIndices, underlyingCount);
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        mPublishing = true;
+                        try {
+                            compactor.publish();
+                        } finally {
+                            mPublishing = false;
+                        }
+                        mIndex.removeDismissed(dismissedIndices);
+                        syncUnderlyingCount();
+                        mCompacting = false;
+                        notifyDataSetChanged();
+                    }
+                });
+            }
+        });
+    }
+
+    private void syncUnderlyingCount() {
+        int count = mAdapter.getCount();
+        int known = mIndex.getUnderlyingCount();
+        if (count > known) {
+            mIndex.append(count - known);
+        } else if (count < known) {
+            // Rows were removed behind our back; tombstones no longer line up.
+            mIndex.reset(count);
+        }
+    }
+
+    @Override
+    public int getCount() {
+        return mIndex.getVisibleCount();
+    }
+
+    @Override
+    public Object getItem(int position) {
+        return mAdapter.getItem(mIndex.toUnderlying(position));
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return mAdapter.getItemId(mIndex.toUnderlying(position));
+    }
+
+    @Override
+    public boolean hasStableIds() {
+        return mAdapter.hasStableIds();
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        return mAdapter.getView(mIndex.toUnderlying(position), convertView, parent);
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return mAdapter.getItemViewType(mIndex.toUnderlying(position));
+    }
+
+    @Override
+    public int getViewTypeCount() {
+        return mAdapter.getViewTypeCount();
+    }
+
+    @Override
+    public boolean areAllItemsEnabled() {
+        return mAdapter.areAllItemsEnabled();
+    }
+
+    @Override
+    public boolean isEnabled(int position) {
+        return mAdapter.isEnabled(mIndex.toUnderlying(position));
+    }
+}
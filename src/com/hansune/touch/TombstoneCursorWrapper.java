@@ -0,0 +1,304 @@
+/*
+ * Copyright 2013 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hansune.touch;
+
+import android.database.Cursor;
+import android.database.CursorWrapper;
+import android.database.DataSetObserver;
+import android.provider.BaseColumns;
+
+import java.util.Arrays;
+
+/**
+ * A {@link android.database.CursorWrapper} that hides dismissed rows, so that a
+ * {@link android.widget.CursorAdapter} can reflect a dismissal without requerying.
+ *
+ * <p>Hidden rows are kept as a sorted array of underlying positions. Moving to a visible
+ * position is a binary search over that array, O(log k) for k hidden rows.</p>
+ *
+ * <p>The overlay reconciles with the database lazily. When the wrapped cursor is requeried, or
+ * when a fresh cursor is wrapped with {@link #reconcile(android.database.Cursor)}, rows are hidden
+ * again by their {@link android.provider.BaseColumns#_ID} only while they are still present,
+ * i.e. until the delete has reached the database.</p>
+ *
+ * <p>Example usage:</p>
+ *
+ * <pre>
+ * tombstoneCursor = new TombstoneCursorWrapper(cursor);
+ * cursorAdapter.swapCursor(tombstoneCursor);
+ * touchListener.setTombstoneCursor(tombstoneCursor);
+ *
+ * // In DismissCallbacks#onDismiss; the listener hides the rows once it returns
+ * deleteInBackground(idsOf(listView, reverseSortedPositions));
+ *
+ * // In LoaderCallbacks#onLoadFinished
+ * tombstoneCursor = tombstoneCursor.reconcile(newCursor);
+ * cursorAdapter.swapCursor(tombstoneCursor);
+ * touchListener.setTombstoneCursor(tombstoneCursor);
+ * </pre>
+ *
+ * <p>Without {@link SwipeDismissListViewTouchListener#setTombstoneCursor(TombstoneCursorWrapper)},
+ * call {@link #hide(int[])} from {@code onDismiss} and notify the adapter yourself.</p>
+ *
+ * <br>
+ * 사라진 행을 다시 쿼리하지 않고 숨기는 {@link android.database.CursorWrapper}.
+ *
+ * @see SwipeDismissListViewTouchListener
+ */
+public class TombstoneCursorWrapper extends CursorWrapper {
+
+    private int[] mHidden = new int[16]; // sorted underlying positions
+    private int mHiddenCount;
+    private long[] mHiddenIds = new long[16];
+    private int mHiddenIdCount;
+    private boolean mReconcilePending;
+    private int mPosition = -1;
+    private final DataSetObserver mStaleObserver = new DataSetObserver() {
+        @Override
+        public void onChanged() {
+            // Requeried in place; hide the rows whose delete has not landed yet.
+            markStale();
+        }
+    };
+
+    /**
+     * Wraps {@code cursor}, initially hiding nothing.
+     *
+     * @param cursor A cursor with an {@link android.provider.BaseColumns#_ID} column.
+     */
+    public TombstoneCursorWrapper(Cursor cursor) {
+        super(cursor);
+        cursor.registerDataSetObserver(mStaleObserver);
+    }
+
+    @Override
+    public void registerDataSetObserver(DataSetObserver observer) {
+        super.registerDataSetObserver(observer);
+        // Observers are notified in reverse order of registration. Stay the last one registered,
+        // so that this wrapper is stale before an adapter reads its count after a requery.
+        Cursor cursor = getWrappedCursor();
+        cursor.unregisterDataSetObserver(mStaleObserver);
+        cursor.registerDataSetObserver(mStaleObserver);
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public boolean requery() {
+        markStale();
+        return super.requery();
+    }
+
+    /**
+     * Hides the rows at the given visible positions.
+     * <br>
+     * 주어진 위치의 행들을 숨긴다.
+     *
+     * @param reverseSortedPositions Positions to hide, sorted in descending order, as passed to
+     *                               {@link SwipeDismissListViewTouchListener.DismissCallbacks#onDismiss(android.widget.ListView, int[])}.
+     * @return the {@link android.provider.BaseColumns#_ID} of each hidden row, in the same order.
+     */
+    public long[] hide(int[] reverseSortedPositions) {
+        ensureReconciled();
+        Cursor cursor = getWrappedCursor();
+        int idColumn = cursor.getColumnIndexOrThrow(BaseColumns._ID);
+        long[] ids = new long[reverseSortedPositions.length];
+        // Descending order keeps the remaining positions valid while hiding.
+        for (int i = 0; i < reverseSortedPositions.length; i++) {
+            int underlying = toUnderlying(reverseSortedPositions[i]);
+            cursor.moveToPosition(underlying);
+            ids[i] = cursor.getLong(idColumn);
+            insertHidden(underlying);
+            addHiddenId(ids[i]);
+        }
+        mPosition = -1;
+        cursor.moveToPosition(-1);
+        return ids;
+    }
+
+    /**
+     * Returns a wrapper over {@code newCursor} that keeps hiding the rows hidden here, for as
+     * long as they are still present in {@code newCursor}. The rows are matched lazily, on the
+     * first access to the new wrapper.
+     *
+     * @param newCursor The result of the next natural requery.
+     */
+    public TombstoneCursorWrapper reconcile(Cursor newCursor) {
+        // This wrapper is done with; stop following the old cursor.
+        getWrappedCursor().unregisterDataSetObserver(mStaleObserver);
+        TombstoneCursorWrapper wrapper = new TombstoneCursorWrapper(newCursor);
+        wrapper.mHiddenIds = Arrays.copyOf(mHiddenIds, Math.max(mHiddenIdCount, 16));
+        wrapper.mHiddenIdCount = mHiddenIdCount;
+        wrapper.mReconcilePending = mHiddenIdCount > 0;
+        return wrapper;
+    }
+
+    /**
+     * Returns the number of rows currently hidden.
+     */
+    public int getHiddenCount() {
+        ensureReconciled();
+        return mHiddenCount;
+    }
+
+    @Override
+    public int getCount() {
+        ensureReconciled();
+        return super.getCount() - mHiddenCount;
+    }
+
+    @Override
+    public int getPosition() {
+        return mPosition;
+    }
+
+    @Override
+    public boolean moveToPosition(int position) {
+        int count = getCount();
+        if (position >= count) {
+            mPosition = count;
+            super.moveToPosition(super.getCount());
+            return false;
+        }
+        if (position < 0) {
+            mPosition = -1;
+            super.moveToPosition(-1);
+            return false;
+        }
+        mPosition = position;
+        return super.moveToPosition(toUnderlying(position));
+    }
+
+    @Override
+    public boolean move(int offset) {
+        return moveToPosition(mPosition + offset);
+    }
+
+    @Override
+    public boolean moveToFirst() {
+        return moveToPosition(0);
+    }
+
+    @Override
+    public boolean moveToLast() {
+        return moveToPosition(getCount() - 1);
+    }
+
+    @Override
+    public boolean moveToNext() {
+        return moveToPosition(mPosition + 1);
+    }
+
+    @Override
+    public boolean moveToPrevious() {
+        return moveToPosition(mPosition - 1);
+    }
+
+    @Override
+    public boolean isFirst() {
+        return mPosition == 0 && getCount() != 0;
+    }
+
+    @Override
+    public boolean isLast() {
+        int count = getCount();
+        return mPosition == count - 1 && count != 0;
+    }
+
+    @Override
+    public boolean isBeforeFirst() {
+        return getCount() == 0 || mPosition == -1;
+    }
+
+    @Override
+    public boolean isAfterLast() {
+        int count = getCount();
+        return count == 0 || mPosition == count;
+    }
+
+    private void markStale() {
+        mReconcilePending = true;
+        mPosition = -1;
+    }
+
+    private int toUnderlying(int position) {
+        // Count hidden rows at or before the answer: hidden[j] - j <= position, monotonic in j.
+        int low = 0;
+        int high = mHiddenCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (mHidden[mid] - mid <= position) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return position + low;
+    }
+
+    private void insertHidden(int underlying) {
+        int insertion = Arrays.binarySearch(mHidden, 0, mHiddenCount, underlying);
+        if (insertion >= 0) {
+            return;
+        }
+        insertion = -insertion - 1;
+        if (mHiddenCount == mHidden.length) {
+            mHidden = Arrays.copyOf(mHidden, mHidden.length * 2);
+        }
+        System.arraycopy(mHidden, insertion, mHidden, insertion + 1, mHiddenCount - insertion);
+        mHidden[insertion] = underlying;
+        mHiddenCount++;
+    }
+
+    private void addHiddenId(long id) {
+        if (mHiddenIdCount == mHiddenIds.length) {
+            mHiddenIds = Arrays.copyOf(mHiddenIds, mHiddenIds.length * 2);
+        }
+        mHiddenIds[mHiddenIdCount++] = id;
+    }
+
+    private void ensureReconciled() {
+        if (!mReconcilePending) {
+            return;
+        }
+        mReconcilePending = false;
+        mHiddenCount = 0;
+        if (mHiddenIdCount == 0) {
+            return;
+        }
+
+        // One pass over the fresh rows; ids whose delete has landed are dropped.
+        long[] pending = Arrays.copyOf(mHiddenIds, mHiddenIdCount);
+        Arrays.sort(pending);
+        mHiddenIdCount = 0;
+        Cursor cursor = getWrappedCursor();
+        int idColumn = cursor.getColumnIndexOrThrow(BaseColumns._ID);
+        int count = cursor.getCount();
+        for (int underlying = 0; underlying < count; underlying++) {
+            cursor.moveToPosition(underlying);
+            long id = cursor.getLong(idColumn);
+            if (Arrays.binarySearch(pending, id) >= 0) {
+                // Visited in ascending order, so appending keeps mHidden sorted.
+                if (mHiddenCount == mHidden.length) {
+                    mHidden = Arrays.copyOf(mHidden, mHidden.length * 2);
+                }
+                mHidden[mHiddenCount++] = underlying;
+                addHiddenId(id);
+            }
+        }
+        cursor.moveToPosition(-1);
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2013 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hansune.touch;
+
+import java.util.Arrays;
+
+/**
+ * Maps visible positions to underlying indices in a list whose dismissed rows are marked as
+ * tombstones instead of being removed.
+ *
+ * <p>Live rows are counted in a Fenwick tree, so {@link #toUnderlying(int)},
+ * {@link #toVisible(int)}, {@link #dismiss(int)} and {@link #append(int)} all run in O(log n),
+ * however large the list is. Dismissed indices are kept in a bitmap until
+ * {@link #removeDismissed(int[])} drops them after the underlying storage has been
+ * compacted.</p>
+ *
+ * <p>This class is not thread safe; use it from the UI thread.</p>
+ *
+ * <br>
+ * 사라진 아이템을 실제로 지우지 않고 표시만 해 두고, 보이는 위치와 실제 위치를 O(log n)에 변환한다.
+ *
+ * @see TombstoneAdapter
+ */
+public class TombstoneIndex {
+
+    private int[] mTree = new int[17]; // 1-based Fenwick tree of live counts
+    private long[] mDismissed = new long[1]; // bitmap of tombstoned underlying indices
+    private int mSize;
+    private int mVisibleCount;
+
+    /**
+     * Constructs an index over {@code size} live rows.
+     */
+    public TombstoneIndex(int size) {
+        reset(size);
+    }
+
+    /**
+     * Returns the number of underlying rows, dismissed or not.
+     */
+    public int getUnderlyingCount() {
+        return mSize;
+    }
+
+    /**
+     * Returns the number of rows that have not been dismissed.
+     */
+    public int getVisibleCount() {
+        return mVisibleCount;
+    }
+
+    /**
+     * Adds {@code count} live rows at the end of the list.
+     */
+    public void append(int count) {
+        ensureCapacity(mSize + count);
+        for (int k = 0; k < count; k++) {
+            int i = ++mSize;
+            // A node covers (i - lowbit(i), i]; all but the new row are already counted.
+            mTree[i] = 1 + prefix(i - 1) - prefix(i - (i & -i));
+        }
+        mVisibleCount += count;
+    }
+
+    /**
+     * Returns the underlying index of the row shown at {@code visiblePosition}.
+     */
+    public int toUnderlying(int visiblePosition) {
+        if (visiblePosition < 0 || visiblePosition >= mVisibleCount) {
+            throw new IndexOutOfBoundsException("visiblePosition " + visiblePosition
+                    + " out of " + mVisibleCount);
+        }
+        int index = 0;
+        int remaining = visiblePosition + 1;
+        for (int step = Integer.highestOneBit(mSize); step > 0; step >>= 1) {
+            int next = index + step;
+            if (next <= mSize && mTree[next] < remaining) {
+                index = next;
+                remaining -= mTree[next];
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns the visible position of the row at {@code underlyingIndex}, or -1 if it has been
+     * dismissed.
+     */
+    public int toVisible(int underlyingIndex) {
+        if (isDismissed(underlyingIndex)) {
+            return -1;
+        }
+        return prefix(underlyingIndex);
+    }
+
+    /**
+     * Returns whether the row at {@code underlyingIndex} has been dismissed.
+     */
+    public boolean isDismissed(int underlyingIndex) {
+        return (mDismissed[underlyingIndex >> 6] & (1L << underlyingIndex)) != 0;
+    }
+
+    /**
+     * Marks the row shown at {@code visiblePosition} as dismissed.
+     *
+     * @return the underlying index of the dismissed row.
+     */
+    public int dismiss(int visiblePosition) {
+        int underlyingIndex = toUnderlying(visiblePosition);
+        mDismissed[underlyingIndex >> 6] |= 1L << underlyingIndex;
+        for (int i = underlyingIndex + 1; i <= mSize; i += i & -i) {
+            mTree[i]--;
+        }
+        mVisibleCount--;
+        return underlyingIndex;
+    }
+
+    /**
+     * Returns the underlying indices of all dismissed rows in ascending order.
+     */
+    public int[] getDismissedIndices() {
+        int[] indices = new int[mSize - mVisibleCount];
+        int count = 0;
+        for (int word = 0; word < mDismissed.length && count < indices.length; word++) {
+            long bits = mDismissed[word];
+            while (bits != 0) {
+                indices[count++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+        return indices;
+    }
+
+    /**
+     * Drops the given dismissed rows from the index, after they have been removed from the
+     * underlying storage. Rows dismissed since {@code sortedIndices} was taken stay dismissed at
+     * their shifted indices. Runs in O(n).
+     *
+     * @param sortedIndices Dismissed underlying indices, in ascending order, as returned by
+     *                      {@link #getDismissedIndices()}.
+     */
+    public void removeDismissed(int[] sortedIndices) {
+        long[] oldDismissed = mDismissed;
+        int oldSize = mSize;
+        reset(oldSize - sortedIndices.length);
+
+        int removed = 0;
+        for (int oldIndex = 0; oldIndex < oldSize; oldIndex++) {
+            if (removed < sortedIndices.length && sortedIndices[removed] == oldIndex) {
+                removed++;
+                continue;
+            }
+            if ((oldDismissed[oldIndex >> 6] & (1L << oldIndex)) != 0) {
+                int newIndex = oldIndex - removed;
+                mDismissed[newIndex >> 6] |= 1L << newIndex;
+                mVisibleCount--;
+            }
+        }
+        build();
+    }
+
+    /**
+     * Forgets all tombstones and resizes the index to {@code size} live rows.
+     */
+    public void reset(int size) {
+        mTree = new int[Math.max(size, 16) + 1];
+        mDismissed = new long[(mTree.length >> 6) + 1];
+        mSize = size;
+        mVisibleCount = size;
+        build();
+    }
+
+    private void build() {
+        // Linear-time construction from the bitmap.
+        Arrays.fill(mTree, 0);
+        for (int i = 1; i <= mSize; i++) {
+            if (!isDismissed(i - 1)) {
+                mTree[i]++;
+            }
+            int parent = i + (i & -i);
+            if (parent <= mSize) {
+                mTree[parent] += mTree[i];
+            }
+        }
+    }
+
+    private int prefix(int count) {
+        // Number of live rows among the first count underlying rows
+        int sum = 0;
+        for (int i = count; i > 0; i -= i & -i) {
+            sum += mTree[i];
+        }
+        return sum;
+    }
+
+    private void ensureCapacity(int size) {
+        if (size + 1 > mTree.length) {
+            mTree = Arrays.copyOf(mTree, Math.max(size + 1, mTree.length * 2));
+            mDismissed = Arrays.copyOf(mDismissed, (mTree.length >> 6) + 1);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2013 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hansune.touch;
+
+import android.view.MotionEvent;
+
+/**
+ * Extrapolates the horizontal finger position a short time ahead from the most recent touch
+ * samples, to hide part of the input-to-display latency while a row follows the finger.
+ *
+ * <p>The velocity is a least-squares fit over the last few samples, historical ones included.
+ * When the samples are too few, too old or disagree about the direction and speed of the finger,
+ * the prediction falls back to zero. Predictions are clamped to a maximum offset.</p>
+ *
+ * <p>Predicted offsets are meant for rendering only.
+ * {@link SwipeDismissListViewTouchListener} never uses them to decide a dismissal.</p>
+ *
+ * <br>
+ * 최근 터치 샘플로부터 잠시 뒤의 손가락 위치를 예측하여, 화면 표시 지연을 줄인다.
+ *
+ * @see SwipeDismissListViewTouchListener#setTouchPredictor(TouchPredictor)
+ */
+public class TouchPredictor {
+
+    /** Default prediction horizon, about one display frame. */
+    public static final long DEFAULT_HORIZON_MILLIS = 16;
+    /** Default upper bound of a prediction, in pixels. */
+    public static final float DEFAULT_MAX_OFFSET = 48f;
+
+    private static final int SAMPLE_COUNT = 6;
+    private static final int MIN_SAMPLES = 3;
+    // Samples older than this say nothing about where the finger is going.
+    private static final long MAX_SAMPLE_AGE_MILLIS = 40;
+    // Relative disagreement between the recent and fitted velocity tolerated before giving up.
+    private static final float MAX_VELOCITY_DEVIATION = 0.5f;
+
+    private final long mHorizonMillis;
+    private final float mMaxOffset;
+
+    private final long[] mTimes = new long[SAMPLE_COUNT];
+    private final float[] mPositions = new float[SAMPLE_COUNT];
+    private int mNewest = -1;
+    private int mSize;
+
+    /**
+     * Constructs a predictor with {@link #DEFAULT_HORIZON_MILLIS} and {@link #DEFAULT_MAX_OFFSET}.
+     */
+    public TouchPredictor() {
+        this(DEFAULT_HORIZON_MILLIS, DEFAULT_MAX_OFFSET);
+    }
+
+    /**
+     * @param horizonMillis How far ahead to predict, typically one frame plus the display latency.
+     * @param maxOffset     Upper bound of a prediction, in pixels.
+     */
+    public TouchPredictor(long horizonMillis, float maxOffset) {
+        mHorizonMillis = horizonMillis;
+        mMaxOffset = maxOffset;
+    }
+
+    /**
+     * Forgets all samples. Call at the start of every gesture.
+     */
+    public void clear() {
+        mNewest = -1;
+        mSize = 0;
+    }
+
+    /**
+     * Records the raw horizontal position of {@code event}, including its batched history.
+     */
+    public void addMovement(MotionEvent event) {
+        // Historical samples are only reported in view coordinates; shift them to raw ones.
+        float rawOffset = event.getRawX() - event.getX();
+        int historySize = event.getHistorySize();
+        for (int i = 0; i < historySize; i++) {
+            add(event.getHistoricalEventTime(i), event.getHistoricalX(i) + rawOffset);
+        }
+        add(event.getEventTime(), event.getRawX());
+    }
+
+    /**
+     * Returns how far the finger is expected to move beyond the last sample within the
+     * prediction horizon, or 0 when the prediction is not trustworthy.
+     *
+     * @param now The current time in the {@link android.os.SystemClock#uptimeMillis()} base.
+     */
+    public float predictOffset(long now) {
+        if (mSize < MIN_SAMPLES || now - mTimes[mNewest] > MAX_SAMPLE_AGE_MILLIS) {
+            return 0;
+        }
+
+        // Least-squares slope of position over time
+        long baseTime = mTimes[mNewest];
+        float sumT = 0;
+        float sumX = 0;
+        float sumTT = 0;
+        float sumTX = 0;
+        for (int k = 0; k < mSize; k++) {
+            int i = (mNewest - k + SAMPLE_COUNT) % SAMPLE_COUNT;
+            float t = mTimes[i] - baseTime;
+            float x = mPositions[i];
+            sumT += t;
+            sumX += x;
+            sumTT += t * t;
+            sumTX += t * x;
+        }
+        float denominator = mSize * sumTT - sumT * sumT;
+        if (denominator <= 0) {
+            return 0;
+        }
+        float velocity = (mSize * sumTX - sumT * sumX) / denominator;
+
+        // The latest segment must agree with the fit, or the finger is turning.
+        int previous = (mNewest - 1 + SAMPLE_COUNT) % SAMPLE_COUNT;
+        long dt = mTimes[mNewest] - mTimes[previous];
+        if (dt <= 0) {
+            return 0;
+        }
+        float recentVelocity = (mPositions[mNewest] - mPositions[previous]) / dt;
+        if (Math.abs(recentVelocity - velocity) > MAX_VELOCITY_DEVIATION * Math.abs(velocity)) {
+            return 0;
+        }
+
+        long ahead = mHorizonMillis + (now - mTimes[mNewest]);
+        float offset = velocity * ahead;
+        return Math.max(-mMaxOffset, Math.min(mMaxOffset, offset));
+    }
+
+    private void add(long time, float position) {
+        if (mSize > 0 && time <= mTimes[mNewest]) {
+            return;
+        }
+        mNewest = (mNewest + 1) % SAMPLE_COUNT;
+        mTimes[mNewest] = time;
+        mPositions[mNewest] = position;
+        if (mSize < SAMPLE_COUNT) {
+            mSize++;
+        }
+    }
+}